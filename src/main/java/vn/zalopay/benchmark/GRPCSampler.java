@@ -8,17 +8,35 @@ import org.apache.jmeter.samplers.Entry;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.testelement.ThreadListener;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import vn.zalopay.benchmark.constant.GrpcSamplerConstant;
 import vn.zalopay.benchmark.core.ClientCaller;
+import vn.zalopay.benchmark.core.config.CallMode;
 import vn.zalopay.benchmark.core.config.GrpcRequestConfig;
+import vn.zalopay.benchmark.core.config.LoadBalancingPolicy;
+import vn.zalopay.benchmark.core.config.ResponseMode;
+import vn.zalopay.benchmark.core.grpc.ChannelFactory;
+import vn.zalopay.benchmark.core.grpc.ChannelTargets;
+import vn.zalopay.benchmark.core.metrics.BackendStats;
+import vn.zalopay.benchmark.core.metrics.CallStats;
+import vn.zalopay.benchmark.core.metrics.ErrorStats;
+import vn.zalopay.benchmark.core.metrics.LatencyRecorder;
+import vn.zalopay.benchmark.core.metrics.MetricsExporter;
+import vn.zalopay.benchmark.core.protobuf.DescriptorCache;
 import vn.zalopay.benchmark.core.protobuf.ProtocInvoker;
+import vn.zalopay.benchmark.core.specification.AsyncCallResult;
+import vn.zalopay.benchmark.core.specification.CallTimings;
 import vn.zalopay.benchmark.core.specification.GrpcResponse;
 import vn.zalopay.benchmark.util.ExceptionUtils;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class GRPCSampler extends AbstractSampler implements ThreadListener, TestStateListener {
 
@@ -47,6 +65,38 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
     public static final String CHANNEL_MAX_INBOUND_METADATA_SIZE =
             "GRPCSampler.maxInboundMetadataSize";
     public static final String LIB_CONTENT_ZIP = "GRPCSampler.libContentZip";
+    public static final String CHANNELS_PER_TARGET = "GRPCSampler.channelsPerTarget";
+    public static final String RESPONSE_MODE = "GRPCSampler.responseMode";
+    public static final String CALL_MODE = "GRPCSampler.callMode";
+    public static final String ASYNC_CALLS_PER_SAMPLE = "GRPCSampler.asyncCallsPerSample";
+    public static final String ASYNC_TARGET_RATE = "GRPCSampler.asyncTargetRate";
+    public static final String ASYNC_MAX_IN_FLIGHT = "GRPCSampler.asyncMaxInFlight";
+    public static final String VIRTUAL_USERS = "GRPCSampler.virtualUsers";
+    public static final String WARM_UP_TIMEOUT = "GRPCSampler.warmUpTimeout";
+    public static final String WARM_UP_CALLS = "GRPCSampler.warmUpCalls";
+    public static final String STREAM_SUB_RESULTS = "GRPCSampler.streamSubResults";
+    public static final String CORRELATION_FIELD = "GRPCSampler.correlationField";
+    public static final String STREAM_MESSAGES_PER_CALL = "GRPCSampler.streamMessagesPerCall";
+    public static final String STREAM_MESSAGE_RATE = "GRPCSampler.streamMessageRate";
+    public static final String STREAM_SOURCE_FILE = "GRPCSampler.streamSourceFile";
+    public static final String SERVICE_CONFIG = "GRPCSampler.serviceConfig";
+    public static final String TARGETS = "GRPCSampler.targets";
+    public static final String LOAD_BALANCING_POLICY = "GRPCSampler.loadBalancingPolicy";
+    public static final String TIMING_ENCODE = "grpc.timing.encode";
+    public static final String TIMING_QUEUE = "grpc.timing.queue";
+    public static final String TIMING_HEADERS = "grpc.timing.headers";
+    public static final String TIMING_LAST_BYTE = "grpc.timing.lastByte";
+    public static final String TIMING_DECODE = "grpc.timing.decode";
+    public static final String TIMING_RENDER = "grpc.timing.render";
+    public static final String ATTEMPTS = "grpc.attempts";
+    public static final String BACKEND = "grpc.backend";
+    public static final String CALLS = "grpc.calls";
+    public static final String CALLS_FAILED = "grpc.calls.failed";
+    public static final String CALL_MEAN = "grpc.call.mean";
+    public static final String CALL_P50 = "grpc.call.p50";
+    public static final String CALL_P90 = "grpc.call.p90";
+    public static final String CALL_P99 = "grpc.call.p99";
+    public static final String CALL_MAX = "grpc.call.max";
     private transient ClientCaller clientCaller;
     private GrpcRequestConfig grpcRequestConfig;
 
@@ -84,6 +134,11 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
                             .awaitTerminationTimeout(getChannelShutdownAwaitTime())
                             .maxInboundMessageSize(getChannelMaxInboundMessageSize())
                             .maxInboundMetadataSize(getChannelMaxInboundMetadataSize())
+                            .channelsPerTarget(getChannelsPerTarget())
+                            .responseMode(getResponseMode())
+                            .serviceConfig(getServiceConfig())
+                            .targets(getTargets())
+                            .loadBalancingPolicy(getLoadBalancingPolicy())
                             .build();
     }
 
@@ -95,7 +150,7 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
 
     @Override
     public SampleResult sample(Entry ignored) {
-        SampleResult sampleResult = new SampleResult();
+        SampleResult sampleResult = newSampleResult();
         sampleResult.setSampleLabel(getName());
 
         if (!initGrpcRequestSampler(sampleResult)) {
@@ -103,11 +158,35 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
         }
 
         // Initiate a GRPC request
-        processGrpcRequestSampler(sampleResult);
+        switch (getCallMode()) {
+            case ASYNC_UNARY:
+                processAsyncGrpcRequestSampler(sampleResult);
+                break;
+            case SERVER_STREAMING:
+                processServerStreamingGrpcRequestSampler(sampleResult);
+                break;
+            case BIDI_SESSION:
+                processBidiSessionGrpcRequestSampler(sampleResult);
+                break;
+            case CLIENT_STREAMING:
+                processClientStreamingGrpcRequestSampler(sampleResult);
+                break;
+            case VIRTUAL_USERS:
+                processVirtualUsersGrpcRequestSampler(sampleResult);
+                break;
+            default:
+                processGrpcRequestSampler(sampleResult);
+        }
 
         return sampleResult;
     }
 
+    private SampleResult newSampleResult() {
+        return getResponseMode() == ResponseMode.LAZY
+                ? new LazyResponseSampleResult()
+                : new SampleResult();
+    }
+
     @Override
     public void clear() {
         super.clear();
@@ -116,12 +195,48 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
     @Override
     public void threadStarted() {
         log.debug("\ttestStarted: {}", whoAmI());
+        if (getWarmUpTimeout() > 0 || getWarmUpCalls() > 0) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Builds the client of this thread before its first sample, connects its channel and sends the
+     * warm-up calls, so the first samples do not pay for channel setup and cold code. The request
+     * is only built for warm-up calls: variables of the request (CSV data sets, extractors) may
+     * not be bound yet, and a request which fails to parse then only skips the calls. Failures are
+     * only logged: the first sample reports them as usual.
+     */
+    private void warmUp() {
+        try {
+            initGrpcConfigRequest();
+            initGrpcClient();
+            if (getWarmUpTimeout() > 0) {
+                clientCaller.awaitReady(getWarmUpTimeout());
+            }
+        } catch (Exception e) {
+            log.warn("[GRPC] Warm-up failed on {}: {}", whoAmI(), e.getMessage());
+            return;
+        }
+        if (getWarmUpCalls() > 0) {
+            try {
+                clientCaller.buildRequestAndMetadata(getRequestJson(), getMetadata());
+                clientCaller.warmUpCalls(getWarmUpCalls(), getDeadline());
+            } catch (Exception e) {
+                log.warn("[GRPC] Warm-up calls skipped on {}: {}", whoAmI(), e.getMessage());
+            }
+        }
     }
 
     @Override
     public void threadFinished() {
         log.debug("\ttestEnded: {}", whoAmI());
         if (clientCaller != null) {
+            if (getCallMode() == CallMode.ASYNC_UNARY) {
+                // Lets the last async calls complete, and be counted in the call metrics, before
+                // the channel closes; no sample is left to report them
+                clientCaller.awaitAsyncCalls(getPropertyAsLong(DEADLINE, 0));
+            }
             clientCaller.shutdownNettyChannel();
             clientCaller = null;
         }
@@ -167,12 +282,265 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
         } else {
             generateErrorResult(grpcResponse, sampleResult);
         }
+        applyCallTimings(grpcResponse, sampleResult);
+    }
+
+    /**
+     * Reports the phases of the call: the time until the request headers were sent as connect
+     * time, the time to the response headers as latency, and every phase in microseconds as the
+     * {@code grpc.timing.*} variables of the thread, which {@code sample_variables} can save,
+     * together with the number of attempts of the call ({@code grpc.attempts}) and the backend
+     * which served it ({@code grpc.backend}, empty if it reached none).
+     */
+    private static void applyCallTimings(GrpcResponse grpcResponse, SampleResult sampleResult) {
+        CallTimings timings = grpcResponse.getTimings();
+        if (timings.getQueueNanos() >= 0) {
+            sampleResult.setConnectTime(TimeUnit.NANOSECONDS.toMillis(timings.getQueueNanos()));
+        }
+        if (timings.getResponseHeadersNanos() >= 0) {
+            sampleResult.setLatency(
+                    TimeUnit.NANOSECONDS.toMillis(timings.getResponseHeadersNanos()));
+        }
+        JMeterVariables variables = JMeterContextService.getContext().getVariables();
+        if (variables == null) {
+            return;
+        }
+        variables.put(TIMING_ENCODE, micros(timings.getEncodeNanos()));
+        variables.put(TIMING_QUEUE, micros(timings.getQueueNanos()));
+        variables.put(TIMING_HEADERS, micros(timings.getResponseHeadersNanos()));
+        variables.put(TIMING_LAST_BYTE, micros(timings.getLastByteNanos()));
+        variables.put(TIMING_DECODE, micros(timings.getDecodeNanos()));
+        variables.put(TIMING_RENDER, micros(timings.getRenderNanos()));
+        variables.put(ATTEMPTS, Integer.toString(timings.getAttempts()));
+        variables.put(BACKEND, timings.getBackend() == null ? "" : timings.getBackend());
+    }
+
+    private static String micros(long nanos) {
+        return Long.toString(nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private void processBidiSessionGrpcRequestSampler(SampleResult sampleResult) {
+        GrpcResponse grpcResponse =
+                clientCaller.callBidiSession(getDeadline(), getCorrelationField());
+        sampleResult.sampleEnd();
+        sampleResult.setDataType(SampleResult.TEXT);
+        if (grpcResponse.isSuccess()) {
+            generateSuccessResult(grpcResponse, sampleResult);
+        } else {
+            generateErrorResult(grpcResponse, sampleResult);
+        }
+        applyCallTimings(grpcResponse, sampleResult);
+    }
+
+    /**
+     * Streams the configured messages in one call. The sent bytes of the sample are the size of
+     * the messages sent and the response message reports their count.
+     */
+    private void processClientStreamingGrpcRequestSampler(SampleResult sampleResult) {
+        GrpcResponse grpcResponse =
+                clientCaller.callClientStreaming(
+                        getDeadline(),
+                        getStreamMessagesPerCall(),
+                        getStreamMessageRate(),
+                        getStreamSourceFile());
+        sampleResult.sampleEnd();
+        sampleResult.setDataType(SampleResult.TEXT);
+        if (grpcResponse.isSuccess()) {
+            generateSuccessResult(grpcResponse, sampleResult);
+            sampleResult.setResponseMessage(
+                    String.format(
+                            "%d messages sent, %d bytes",
+                            grpcResponse.getSentMessageCount(), grpcResponse.getSentBytes()));
+        } else {
+            generateErrorResult(grpcResponse, sampleResult);
+        }
+        sampleResult.setSentBytes(grpcResponse.getSentBytes());
+        applyCallTimings(grpcResponse, sampleResult);
+    }
+
+    /**
+     * Sends a batch of unary calls without blocking on each of them. The sample stands for the
+     * batch and reports the calls which completed while it ran, see {@link #applyCallResults};
+     * calls still in flight are reported by the next sample.
+     */
+    private void processAsyncGrpcRequestSampler(SampleResult sampleResult) {
+        List<AsyncCallResult> results =
+                clientCaller.callAsync(
+                        getDeadline(),
+                        getAsyncCallsPerSample(),
+                        getAsyncTargetRate(),
+                        getAsyncMaxInFlight());
+        applyCallResults(results, sampleResult);
+    }
+
+    /**
+     * Runs a batch of virtual users which each send one blocking call, all at once. The sample
+     * stands for the whole batch and reports its calls like an async batch.
+     */
+    private void processVirtualUsersGrpcRequestSampler(SampleResult sampleResult) {
+        List<AsyncCallResult> results =
+                clientCaller.callVirtualUsers(getDeadline(), getVirtualUsers());
+        applyCallResults(results, sampleResult);
+    }
+
+    /**
+     * Reports a batch of calls. The sample counts as one sample timed over the whole batch, so
+     * listeners which divide the elapsed time by the sample count do not turn the batch time into
+     * a per-call latency. The latency of the calls is published separately: every call is a
+     * sub-result labelled {@code <name>-call} with its own timing, and the thread's variables get
+     * the call count, failures and the mean, percentiles and maximum of the call times in
+     * milliseconds ({@code grpc.calls}, {@code grpc.call.p99}, ...).
+     */
+    private void applyCallResults(List<AsyncCallResult> results, SampleResult sampleResult) {
+        sampleResult.sampleEnd();
+        sampleResult.setDataType(SampleResult.TEXT);
+        int errors = 0;
+        long bodySize = 0;
+        long[] elapsed = new long[results.size()];
+        for (int i = 0; i < elapsed.length; i++) {
+            AsyncCallResult result = results.get(i);
+            SampleResult subResult = newSampleResult();
+            subResult.setSampleLabel(getName() + "-call");
+            subResult.setStampAndTime(result.getStartTime(), result.getElapsed());
+            subResult.setDataType(SampleResult.TEXT);
+            if (result.getResponse().isSuccess()) {
+                generateSuccessResult(result.getResponse(), subResult);
+            } else {
+                generateErrorResult(result.getResponse(), subResult);
+                errors++;
+            }
+            elapsed[i] = result.getElapsed();
+            bodySize += subResult.getBodySizeAsLong();
+            sampleResult.storeSubResult(subResult, false);
+        }
+        sampleResult.setBodySize(bodySize);
+        sampleResult.setSuccessful(errors == 0);
+        sampleResult.setErrorCount(errors == 0 ? 0 : 1);
+        if (sampleResult.isSuccessful()) {
+            sampleResult.setResponseCodeOK();
+        } else {
+            sampleResult.setResponseCode("500");
+        }
+        sampleResult.setResponseMessage(
+                String.format("%d calls, %d failed", results.size(), errors));
+        applyCallLatencies(elapsed, errors);
+    }
+
+    private static void applyCallLatencies(long[] elapsed, int errors) {
+        JMeterVariables variables = JMeterContextService.getContext().getVariables();
+        if (variables == null) {
+            return;
+        }
+        Arrays.sort(elapsed);
+        long total = 0;
+        for (long value : elapsed) {
+            total += value;
+        }
+        variables.put(CALLS, Integer.toString(elapsed.length));
+        variables.put(CALLS_FAILED, Integer.toString(errors));
+        String mean = elapsed.length == 0 ? "-1" : Long.toString(total / elapsed.length);
+        variables.put(CALL_MEAN, mean);
+        variables.put(CALL_P50, percentile(elapsed, 50));
+        variables.put(CALL_P90, percentile(elapsed, 90));
+        variables.put(CALL_P99, percentile(elapsed, 99));
+        variables.put(CALL_MAX, percentile(elapsed, 100));
+    }
+
+    /** Nearest-rank percentile of sorted values, -1 when there are none. */
+    private static String percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return "-1";
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return Long.toString(sorted[Math.max(0, rank - 1)]);
+    }
+
+    /**
+     * Reads a server stream to its end. The latency of the sample is the time to the first message,
+     * the response message summarizes the stream, and unless disabled every message is attached
+     * as a sub-result whose elapsed time is the gap since the previous message.
+     */
+    private void processServerStreamingGrpcRequestSampler(SampleResult sampleResult) {
+        boolean subResults = isStreamSubResults();
+        GrpcResponse grpcResponse = clientCaller.callServerStreaming(getDeadline(), subResults);
+        sampleResult.sampleEnd();
+        sampleResult.setDataType(SampleResult.TEXT);
+        if (grpcResponse.isSuccess()) {
+            generateSuccessResult(grpcResponse, sampleResult);
+            sampleResult.setResponseMessage(getStreamSummary(grpcResponse));
+        } else {
+            generateErrorResult(grpcResponse, sampleResult);
+        }
+        applyCallTimings(grpcResponse, sampleResult);
+        if (grpcResponse.getMessageCount() > 0) {
+            sampleResult.setLatency(
+                    TimeUnit.NANOSECONDS.toMillis(grpcResponse.getTimeToFirstMessageNanos()));
+        }
+        if (subResults) {
+            generateStreamMessageSubResults(grpcResponse, sampleResult);
+        }
+    }
+
+    private static String getStreamSummary(GrpcResponse grpcResponse) {
+        return String.format(
+                "%d messages, %d bytes, first message after %d ms, mean gap %d ms, max gap %d ms",
+                grpcResponse.getMessageCount(),
+                grpcResponse.getResponseBytes(),
+                TimeUnit.NANOSECONDS.toMillis(
+                        Math.max(0, grpcResponse.getTimeToFirstMessageNanos())),
+                TimeUnit.NANOSECONDS.toMillis(grpcResponse.getMeanMessageGapNanos()),
+                TimeUnit.NANOSECONDS.toMillis(grpcResponse.getMaxMessageGapNanos()));
+    }
+
+    private void generateStreamMessageSubResults(
+            GrpcResponse grpcResponse, SampleResult sampleResult) {
+        long previous = grpcResponse.getStartTimeMillis();
+        int index = 0;
+        for (GrpcResponse.MessageTiming timing : grpcResponse.getMessageTimings()) {
+            SampleResult subResult = newSampleResult();
+            subResult.setSampleLabel(getName());
+            subResult.setStampAndTime(previous, timing.getArrivalTimeMillis() - previous);
+            subResult.setDataType(SampleResult.TEXT);
+            subResult.setSuccessful(true);
+            subResult.setResponseCodeOK();
+            subResult.setResponseMessage("message " + (index + 1));
+            if (subResult instanceof LazyResponseSampleResult) {
+                int messageIndex = index;
+                ((LazyResponseSampleResult) subResult)
+                        .setLazyResponseData(
+                                () -> renderStreamMessage(grpcResponse, messageIndex),
+                                timing.getSerializedSize());
+            } else {
+                subResult.setResponseData(
+                        renderStreamMessage(grpcResponse, index).getBytes(StandardCharsets.UTF_8));
+                subResult.setBodySize((long) timing.getSerializedSize());
+            }
+            sampleResult.storeSubResult(subResult, true);
+            previous = timing.getArrivalTimeMillis();
+            index++;
+        }
+    }
+
+    private static String renderStreamMessage(GrpcResponse grpcResponse, int index) {
+        String message = grpcResponse.getGrpcMessageString(index);
+        return message == null ? "" : message;
     }
 
     private void generateSuccessResult(GrpcResponse grpcResponse, SampleResult sampleResult) {
         sampleResult.setSuccessful(true);
         sampleResult.setResponseCodeOK();
         sampleResult.setResponseMessage("success");
+        if (grpcRequestConfig.getResponseMode() == ResponseMode.SIZE_ONLY) {
+            // Bodies were discarded while reading, only their size on the wire is reported.
+            sampleResult.setBodySize(grpcResponse.getResponseBytes());
+            return;
+        }
+        if (sampleResult instanceof LazyResponseSampleResult) {
+            ((LazyResponseSampleResult) sampleResult)
+                    .setLazyResponseData(
+                            grpcResponse::getGrpcMessageString, grpcResponse.getResponseBytes());
+            return;
+        }
         sampleResult.setResponseData(
                 grpcResponse.getGrpcMessageString().getBytes(StandardCharsets.UTF_8));
     }
@@ -181,6 +549,10 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
         Throwable throwable = grpcResponse.getThrowable();
         sampleResult.setSuccessful(false);
         sampleResult.setResponseCode("500");
+        if (!grpcResponse.isDetailedError()) {
+            generateCompactErrorResponseData(sampleResult, grpcResponse.getStatusCode());
+            return;
+        }
         boolean isRuntimeException = throwable instanceof StatusRuntimeException;
         if (isRuntimeException) {
             generateStatusRuntimeExceptionResponseData(sampleResult, throwable);
@@ -201,6 +573,18 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
         sampleResult.setResponseData(responseData, "UTF-8");
     }
 
+    /**
+     * Reports a failure past the detailed ones of its status code with the code and the
+     * description shared by all failures of that code, without rendering the exception.
+     */
+    private void generateCompactErrorResponseData(SampleResult sampleResult, Status.Code code) {
+        if (code == null) {
+            code = Status.Code.UNKNOWN;
+        }
+        sampleResult.setResponseMessage(code.value() + " " + code.name());
+        sampleResult.setResponseData(ErrorStats.get().getDescription(code), "UTF-8");
+    }
+
     private void generateExceptionInInvokeSendGrpcResponseData(
             SampleResult sampleResult, Throwable throwable) {
         String responseMessage = "";
@@ -322,6 +706,142 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
         setProperty(CHANNEL_MAX_INBOUND_METADATA_SIZE, channelMaxInboundMetadataSize);
     }
 
+    public int getChannelsPerTarget() {
+        return getPropertyAsInt(CHANNELS_PER_TARGET, 0);
+    }
+
+    public void setChannelsPerTarget(String channelsPerTarget) {
+        setProperty(CHANNELS_PER_TARGET, channelsPerTarget);
+    }
+
+    public ResponseMode getResponseMode() {
+        return ResponseMode.fromString(getPropertyAsString(RESPONSE_MODE));
+    }
+
+    public void setResponseMode(String responseMode) {
+        setProperty(RESPONSE_MODE, responseMode);
+    }
+
+    public CallMode getCallMode() {
+        return CallMode.fromString(getPropertyAsString(CALL_MODE));
+    }
+
+    public void setCallMode(String callMode) {
+        setProperty(CALL_MODE, callMode);
+    }
+
+    public int getAsyncCallsPerSample() {
+        return getPropertyAsInt(ASYNC_CALLS_PER_SAMPLE, 100);
+    }
+
+    public void setAsyncCallsPerSample(String asyncCallsPerSample) {
+        setProperty(ASYNC_CALLS_PER_SAMPLE, asyncCallsPerSample);
+    }
+
+    public double getAsyncTargetRate() {
+        return getPropertyAsDouble(ASYNC_TARGET_RATE);
+    }
+
+    public void setAsyncTargetRate(String asyncTargetRate) {
+        setProperty(ASYNC_TARGET_RATE, asyncTargetRate);
+    }
+
+    public int getAsyncMaxInFlight() {
+        return getPropertyAsInt(ASYNC_MAX_IN_FLIGHT, 100);
+    }
+
+    public void setAsyncMaxInFlight(String asyncMaxInFlight) {
+        setProperty(ASYNC_MAX_IN_FLIGHT, asyncMaxInFlight);
+    }
+
+    public int getVirtualUsers() {
+        return getPropertyAsInt(VIRTUAL_USERS, 100);
+    }
+
+    public void setVirtualUsers(String virtualUsers) {
+        setProperty(VIRTUAL_USERS, virtualUsers);
+    }
+
+    public int getWarmUpTimeout() {
+        return getPropertyAsInt(WARM_UP_TIMEOUT, 0);
+    }
+
+    public void setWarmUpTimeout(String warmUpTimeout) {
+        setProperty(WARM_UP_TIMEOUT, warmUpTimeout);
+    }
+
+    public int getWarmUpCalls() {
+        return getPropertyAsInt(WARM_UP_CALLS, 0);
+    }
+
+    public void setWarmUpCalls(String warmUpCalls) {
+        setProperty(WARM_UP_CALLS, warmUpCalls);
+    }
+
+    public boolean isStreamSubResults() {
+        return getPropertyAsBoolean(STREAM_SUB_RESULTS, true);
+    }
+
+    public void setStreamSubResults(boolean streamSubResults) {
+        setProperty(STREAM_SUB_RESULTS, streamSubResults);
+    }
+
+    public String getServiceConfig() {
+        return getPropertyAsString(SERVICE_CONFIG);
+    }
+
+    public void setServiceConfig(String serviceConfig) {
+        setProperty(SERVICE_CONFIG, serviceConfig);
+    }
+
+    public String getTargets() {
+        return getPropertyAsString(TARGETS);
+    }
+
+    public void setTargets(String targets) {
+        setProperty(TARGETS, targets);
+    }
+
+    public LoadBalancingPolicy getLoadBalancingPolicy() {
+        return LoadBalancingPolicy.fromString(getPropertyAsString(LOAD_BALANCING_POLICY));
+    }
+
+    public void setLoadBalancingPolicy(String loadBalancingPolicy) {
+        setProperty(LOAD_BALANCING_POLICY, loadBalancingPolicy);
+    }
+
+    public String getCorrelationField() {
+        return getPropertyAsString(CORRELATION_FIELD);
+    }
+
+    public void setCorrelationField(String correlationField) {
+        setProperty(CORRELATION_FIELD, correlationField);
+    }
+
+    public int getStreamMessagesPerCall() {
+        return getPropertyAsInt(STREAM_MESSAGES_PER_CALL, 0);
+    }
+
+    public void setStreamMessagesPerCall(String streamMessagesPerCall) {
+        setProperty(STREAM_MESSAGES_PER_CALL, streamMessagesPerCall);
+    }
+
+    public double getStreamMessageRate() {
+        return getPropertyAsDouble(STREAM_MESSAGE_RATE);
+    }
+
+    public void setStreamMessageRate(String streamMessageRate) {
+        setProperty(STREAM_MESSAGE_RATE, streamMessageRate);
+    }
+
+    public String getStreamSourceFile() {
+        return getPropertyAsString(STREAM_SOURCE_FILE);
+    }
+
+    public void setStreamSourceFile(String streamSourceFile) {
+        setProperty(STREAM_SOURCE_FILE, streamSourceFile);
+    }
+
     public String getLibContentZip() { return getPropertyAsString(LIB_CONTENT_ZIP); }
     public void setLibContentZip(String v) { setProperty(LIB_CONTENT_ZIP, v); }
 
@@ -335,28 +855,46 @@ public class GRPCSampler extends AbstractSampler implements ThreadListener, Test
     public void setTlsClientKeyPassword(String v) { setProperty(TLS_CLIENT_KEY_PASSWORD, v); }
 
     private String getHostPort() {
+        // Without a host the channel is named after its backend targets
+        if (getHost().trim().isEmpty() && ChannelTargets.isSet(getTargets())) {
+            return ChannelTargets.authority(getTargets());
+        }
         return getHost() + ":" + getPort();
     }
 
     @Override
     public void testStarted() {
         log.info("testStarted");
+        MetricsExporter.get().start();
     }
 
     @Override
     public void testStarted(String s) {
         log.info("testStarted {}", s);
+        MetricsExporter.get().start();
     }
 
     @Override
     public void testEnded() {
         log.info("testEnded");
-        ProtocInvoker.cleanTempFolderForGeneratingProtoc();
+        cleanUpSharedResources();
     }
 
     @Override
     public void testEnded(String s) {
         log.info("testEnded {}", s);
+        cleanUpSharedResources();
+    }
+
+    private void cleanUpSharedResources() {
+        CallStats.get().stop();
+        ErrorStats.get().stop();
+        BackendStats.get().stop();
+        LatencyRecorder.get().stop();
+        MetricsExporter.get().stop();
+        ChannelFactory.shutdownSharedChannels(getChannelShutdownAwaitTime());
+        ChannelFactory.shutdownEventLoops();
+        DescriptorCache.clear();
         ProtocInvoker.cleanTempFolderForGeneratingProtoc();
     }
 }
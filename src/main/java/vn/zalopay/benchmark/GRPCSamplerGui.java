@@ -22,6 +22,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import vn.zalopay.benchmark.core.ClientList;
+import vn.zalopay.benchmark.core.config.CallMode;
+import vn.zalopay.benchmark.core.config.LoadBalancingPolicy;
+import vn.zalopay.benchmark.core.config.ResponseMode;
 import vn.zalopay.benchmark.core.protobuf.ProtoMethodName;
 import vn.zalopay.benchmark.core.protobuf.ServiceResolver;
 import vn.zalopay.benchmark.util.JMeterVariableUtils;
@@ -72,6 +75,23 @@ public class GRPCSamplerGui extends AbstractSamplerGui {
     private JLabeledTextField channelFactoryShutdownTimeField;
     private JLabeledTextField maxInboundMessageSize;
     private JLabeledTextField maxInboundMetadataSize;
+    private JLabeledTextField channelsPerTargetField;
+    private JLabeledTextField serviceConfigField;
+    private JLabeledTextField targetsField;
+    private JComboBox<LoadBalancingPolicy> loadBalancingPolicyField;
+    private JComboBox<ResponseMode> responseModeField;
+    private JComboBox<CallMode> callModeField;
+    private JLabeledTextField virtualUsersField;
+    private JLabeledTextField warmUpTimeoutField;
+    private JLabeledTextField warmUpCallsField;
+    private JLabeledTextField asyncCallsPerSampleField;
+    private JLabeledTextField asyncTargetRateField;
+    private JLabeledTextField asyncMaxInFlightField;
+    private JCheckBox streamSubResultsCheckBox;
+    private JLabeledTextField correlationField;
+    private JLabeledTextField streamMessagesPerCallField;
+    private JLabeledTextField streamMessageRateField;
+    private JLabeledTextField streamSourceFileField;
 
     private JCheckBox isTLSCheckBox;
     private JLabeledTextField caPemField;
@@ -133,6 +153,24 @@ public class GRPCSamplerGui extends AbstractSamplerGui {
         grpcSampler.setChannelShutdownAwaitTime(this.channelFactoryShutdownTimeField.getText());
         grpcSampler.setChannelMaxInboundMessageSize(this.maxInboundMessageSize.getText());
         grpcSampler.setChannelMaxInboundMetadataSize(this.maxInboundMetadataSize.getText());
+        grpcSampler.setChannelsPerTarget(this.channelsPerTargetField.getText());
+        grpcSampler.setServiceConfig(this.serviceConfigField.getText());
+        grpcSampler.setTargets(this.targetsField.getText());
+        grpcSampler.setLoadBalancingPolicy(
+                this.loadBalancingPolicyField.getSelectedItem().toString());
+        grpcSampler.setResponseMode(this.responseModeField.getSelectedItem().toString());
+        grpcSampler.setCallMode(this.callModeField.getSelectedItem().toString());
+        grpcSampler.setAsyncCallsPerSample(this.asyncCallsPerSampleField.getText());
+        grpcSampler.setAsyncTargetRate(this.asyncTargetRateField.getText());
+        grpcSampler.setAsyncMaxInFlight(this.asyncMaxInFlightField.getText());
+        grpcSampler.setVirtualUsers(this.virtualUsersField.getText());
+        grpcSampler.setWarmUpTimeout(this.warmUpTimeoutField.getText());
+        grpcSampler.setWarmUpCalls(this.warmUpCallsField.getText());
+        grpcSampler.setStreamSubResults(this.streamSubResultsCheckBox.isSelected());
+        grpcSampler.setCorrelationField(this.correlationField.getText());
+        grpcSampler.setStreamMessagesPerCall(this.streamMessagesPerCallField.getText());
+        grpcSampler.setStreamMessageRate(this.streamMessageRateField.getText());
+        grpcSampler.setStreamSourceFile(this.streamSourceFileField.getText());
         grpcSampler.setRequestJson(this.requestJsonArea.getText());
     }
 
@@ -168,6 +206,24 @@ public class GRPCSamplerGui extends AbstractSamplerGui {
                 Integer.toString(grpcSampler.getChannelMaxInboundMessageSize()));
         maxInboundMetadataSize.setText(
                 Integer.toString(grpcSampler.getChannelMaxInboundMetadataSize()));
+        channelsPerTargetField.setText(Integer.toString(grpcSampler.getChannelsPerTarget()));
+        serviceConfigField.setText(grpcSampler.getServiceConfig());
+        targetsField.setText(grpcSampler.getTargets());
+        loadBalancingPolicyField.setSelectedItem(grpcSampler.getLoadBalancingPolicy());
+        responseModeField.setSelectedItem(grpcSampler.getResponseMode());
+        callModeField.setSelectedItem(grpcSampler.getCallMode());
+        asyncCallsPerSampleField.setText(Integer.toString(grpcSampler.getAsyncCallsPerSample()));
+        asyncTargetRateField.setText(Double.toString(grpcSampler.getAsyncTargetRate()));
+        asyncMaxInFlightField.setText(Integer.toString(grpcSampler.getAsyncMaxInFlight()));
+        virtualUsersField.setText(Integer.toString(grpcSampler.getVirtualUsers()));
+        warmUpTimeoutField.setText(Integer.toString(grpcSampler.getWarmUpTimeout()));
+        warmUpCallsField.setText(Integer.toString(grpcSampler.getWarmUpCalls()));
+        streamSubResultsCheckBox.setSelected(grpcSampler.isStreamSubResults());
+        correlationField.setText(grpcSampler.getCorrelationField());
+        streamMessagesPerCallField.setText(
+                Integer.toString(grpcSampler.getStreamMessagesPerCall()));
+        streamMessageRateField.setText(Double.toString(grpcSampler.getStreamMessageRate()));
+        streamSourceFileField.setText(grpcSampler.getStreamSourceFile());
         requestJsonArea.setText(grpcSampler.getRequestJson());
     }
 
@@ -192,6 +248,23 @@ public class GRPCSamplerGui extends AbstractSamplerGui {
         channelFactoryShutdownTimeField.setText("1000");
         maxInboundMessageSize.setText("4194304");
         maxInboundMetadataSize.setText("8192");
+        channelsPerTargetField.setText("0");
+        serviceConfigField.setText("");
+        targetsField.setText("");
+        loadBalancingPolicyField.setSelectedItem(LoadBalancingPolicy.AUTO);
+        responseModeField.setSelectedItem(ResponseMode.FULL);
+        callModeField.setSelectedItem(CallMode.UNARY);
+        asyncCallsPerSampleField.setText("100");
+        asyncTargetRateField.setText("0");
+        asyncMaxInFlightField.setText("100");
+        virtualUsersField.setText("100");
+        warmUpTimeoutField.setText("0");
+        warmUpCallsField.setText("0");
+        streamSubResultsCheckBox.setSelected(true);
+        correlationField.setText("");
+        streamMessagesPerCallField.setText("0");
+        streamMessageRateField.setText("0");
+        streamSourceFileField.setText("");
         requestJsonArea.setText("");
     }
 
@@ -458,6 +531,49 @@ public class GRPCSamplerGui extends AbstractSamplerGui {
                 new JLabeledTextField("Maximum message size allowed for a single gRPC frame");
         maxInboundMetadataSize =
                 new JLabeledTextField("Maximum size of metadata allowed to be received:");
+        channelsPerTargetField =
+                new JLabeledTextField("Shared Channels Per Target (0 = one channel per thread):", 5);
+        serviceConfigField =
+                new JLabeledTextField("Service Config (JSON or file, enables retries):", 32);
+        targetsField =
+                new JLabeledTextField(
+                        "Backend Targets (host:port list or dns:/// URI, empty = host):", 24);
+        loadBalancingPolicyField = new JComboBox<>(LoadBalancingPolicy.values());
+        JPanel loadBalancingPanel = new HorizontalPanel();
+        loadBalancingPanel.add(targetsField);
+        loadBalancingPanel.add(new JLabel("Load Balancing:"));
+        loadBalancingPanel.add(loadBalancingPolicyField);
+        responseModeField = new JComboBox<>(ResponseMode.values());
+        JPanel responseModePanel = new HorizontalPanel();
+        responseModePanel.add(new JLabel("Response Handling:"));
+        responseModePanel.add(responseModeField);
+        callModeField = new JComboBox<>(CallMode.values());
+        responseModePanel.add(new JLabel("Call Mode:"));
+        responseModePanel.add(callModeField);
+        asyncCallsPerSampleField = new JLabeledTextField("Async Calls Per Sample:", 5);
+        asyncTargetRateField =
+                new JLabeledTextField("Async Target Rate (calls/s per thread, 0 = unpaced):", 5);
+        asyncMaxInFlightField = new JLabeledTextField("Async Max In-Flight Calls:", 5);
+        JPanel asyncPanel = new HorizontalPanel();
+        asyncPanel.add(asyncCallsPerSampleField);
+        asyncPanel.add(asyncTargetRateField);
+        asyncPanel.add(asyncMaxInFlightField);
+        virtualUsersField = new JLabeledTextField("Virtual Users Per Sample:", 5);
+        asyncPanel.add(virtualUsersField);
+        streamSubResultsCheckBox = new JCheckBox("Stream Messages As Sub-Results", true);
+        responseModePanel.add(streamSubResultsCheckBox);
+        correlationField =
+                new JLabeledTextField("Bidi Session Correlation Field (empty = by order):", 12);
+        streamMessagesPerCallField =
+                new JLabeledTextField("Client Stream Messages Per Call (0 = one pass):", 5);
+        streamMessageRateField =
+                new JLabeledTextField("Client Stream Message Rate (messages/s, 0 = unpaced):", 5);
+        streamSourceFileField =
+                new JLabeledTextField("Client Stream JSON-Lines File (empty = request):", 20);
+        JPanel clientStreamPanel = new HorizontalPanel();
+        clientStreamPanel.add(streamMessagesPerCallField);
+        clientStreamPanel.add(streamMessageRateField);
+        clientStreamPanel.add(streamSourceFileField);
         JPanel metadataServerPanel = new HorizontalPanel();
 
         metadataServerPanel.add(metadataLabel);
@@ -468,10 +584,25 @@ public class GRPCSamplerGui extends AbstractSamplerGui {
         timeOutOptionServerPanel.add(deadlineField);
         timeOutOptionServerPanel.add(channelFactoryShutdownTimeField);
 
+        warmUpTimeoutField =
+                new JLabeledTextField("Warm-Up Connect Timeout In Millisecond (0 = off):", 5);
+        warmUpCallsField = new JLabeledTextField("Warm-Up Calls Per Thread:", 5);
+        JPanel warmUpPanel = new HorizontalPanel();
+        warmUpPanel.add(warmUpTimeoutField);
+        warmUpPanel.add(warmUpCallsField);
+
         optionalPanel.add(metadataServerPanel);
         optionalPanel.add(timeOutOptionServerPanel);
+        optionalPanel.add(warmUpPanel);
         optionalPanel.add(maxInboundMessageSize);
         optionalPanel.add(maxInboundMetadataSize);
+        optionalPanel.add(channelsPerTargetField);
+        optionalPanel.add(serviceConfigField);
+        optionalPanel.add(loadBalancingPanel);
+        optionalPanel.add(responseModePanel);
+        optionalPanel.add(asyncPanel);
+        optionalPanel.add(correlationField);
+        optionalPanel.add(clientStreamPanel);
         return optionalPanel;
     }
 
@@ -0,0 +1,55 @@
+package vn.zalopay.benchmark;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Sample result whose response body is rendered only when something reads it.
+ *
+ * <p>Post-processors, assertions and listeners such as View Results Tree go through {@link
+ * #getResponseData()} or {@link #getResponseDataAsString()}, which render the pending body once
+ * and then behave like a plain {@link SampleResult}. Results which nobody inspects never pay for
+ * the rendering.
+ */
+public class LazyResponseSampleResult extends SampleResult {
+    private static final long serialVersionUID = 240L;
+
+    private transient Supplier<String> pendingResponseData;
+
+    /**
+     * Sets a body which is rendered on first access. The body size is reported from {@code
+     * bodySize} so that computing the sample bytes does not force the rendering.
+     */
+    public synchronized void setLazyResponseData(Supplier<String> responseData, long bodySize) {
+        this.pendingResponseData = responseData;
+        setBodySize(bodySize);
+    }
+
+    @Override
+    public byte[] getResponseData() {
+        materializeResponseData();
+        return super.getResponseData();
+    }
+
+    @Override
+    public String getResponseDataAsString() {
+        materializeResponseData();
+        return super.getResponseDataAsString();
+    }
+
+    private synchronized void materializeResponseData() {
+        if (pendingResponseData != null) {
+            Supplier<String> responseData = pendingResponseData;
+            pendingResponseData = null;
+            setResponseData(responseData.get().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Renders the body before the result is sent to a remote controller or saved. */
+    private Object writeReplace() {
+        materializeResponseData();
+        return this;
+    }
+}
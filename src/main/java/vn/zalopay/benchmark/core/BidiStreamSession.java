@@ -0,0 +1,310 @@
+package vn.zalopay.benchmark.core;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+
+import io.grpc.CallOptions;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import vn.zalopay.benchmark.core.channel.ReadyGate;
+import vn.zalopay.benchmark.core.grpc.DynamicGrpcClient;
+import vn.zalopay.benchmark.core.specification.CallTimings;
+import vn.zalopay.benchmark.core.specification.GrpcResponse;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A bidi stream kept open across samples, on which every exchange sends one request and waits for
+ * the matching response.
+ *
+ * <p>Responses are matched by order, or by a correlation field: either one field path present in
+ * both messages ({@code id}, {@code header.requestId}) or a request path and a response path
+ * separated by {@code =} ({@code shelf.id=id}). Responses which match no outstanding request are
+ * dropped. The stream is opened on the first exchange and again after the server closed it.
+ *
+ * <p>The stream is opened with the call options of the caller, without deadline, and its tracer
+ * records the transport events in the timings of the exchange in progress. When responses are
+ * rendered by the waiting thread, the stream callbacks only hand the matching response over and
+ * the thread which waits for the exchange passes it to the writer.
+ */
+final class BidiStreamSession {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BidiStreamSession.class);
+
+    private final DynamicGrpcClient dynamicClient;
+    private final Function<GrpcResponse, StreamObserver<DynamicMessage>> writerFactory;
+    private final List<String> requestPath;
+    private final List<String> responsePath;
+    private final CallOptions callOptions;
+    private final boolean renderOnWaitingThread;
+    private ClientCallStreamObserver<ByteString> requestStream;
+    private volatile SessionObserver observer;
+    private volatile ReadyGate readyGate;
+    private volatile boolean open;
+    private volatile Exchange current;
+
+    BidiStreamSession(
+            DynamicGrpcClient dynamicClient,
+            String correlationField,
+            Function<GrpcResponse, StreamObserver<DynamicMessage>> writerFactory,
+            CallOptions callOptions,
+            boolean renderOnWaitingThread) {
+        this.dynamicClient = dynamicClient;
+        this.writerFactory = writerFactory;
+        this.callOptions =
+                callOptions.withStreamTracerFactory(
+                        CallTimings.exchangeTracerFactory(this::currentTimings));
+        this.renderOnWaitingThread = renderOnWaitingThread;
+        if (Strings.isNullOrEmpty(correlationField) || correlationField.trim().isEmpty()) {
+            requestPath = null;
+            responsePath = null;
+        } else {
+            List<String> paths = Splitter.on('=').trimResults().splitToList(correlationField);
+            requestPath = Splitter.on('.').splitToList(paths.get(0));
+            responsePath = Splitter.on('.').splitToList(paths.get(paths.size() - 1));
+        }
+    }
+
+    /**
+     * Sends one request on the session and waits up to {@code deadlineMs} (forever if 0) for the
+     * matching response, which is reported in {@code grpcResponse}. The deadline also covers the
+     * wait for the stream to be ready. A timeout fails the exchange with DEADLINE_EXCEEDED; when
+     * matching by order the stream is also cancelled, so that the late response cannot be taken for
+     * the answer to the next request. An interrupt is handled the same way.
+     */
+    GrpcResponse exchange(
+            ByteString payload,
+            DynamicMessage request,
+            long deadlineMs,
+            GrpcResponse grpcResponse) {
+        Exchange exchange =
+                new Exchange(
+                        requestPath == null ? null : correlationValue(request, requestPath),
+                        writerFactory.apply(grpcResponse),
+                        grpcResponse.getTimings(),
+                        renderOnWaitingThread);
+        long deadlineNanos =
+                deadlineMs > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs) : 0;
+        try {
+            if (!open) {
+                openStream();
+            }
+            if (!readyGate.await(deadlineMs)) {
+                exchange.fail(
+                        (readyGate.isClosed() ? Status.UNAVAILABLE : Status.DEADLINE_EXCEEDED)
+                                .withDescription("Bidi session not ready to send")
+                                .asRuntimeException());
+                return grpcResponse;
+            }
+            current = exchange;
+            requestStream.onNext(payload);
+            grpcResponse.recordSentMessage(payload.size());
+            if (deadlineMs > 0) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (!exchange.done.await(remainingNanos, TimeUnit.NANOSECONDS)) {
+                    exchange.fail(
+                            Status.DEADLINE_EXCEEDED
+                                    .withDescription(
+                                            "No response on the bidi session within "
+                                                    + deadlineMs
+                                                    + " ms")
+                                    .asRuntimeException());
+                    if (requestPath == null) {
+                        close(true);
+                    }
+                }
+            } else {
+                exchange.done.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.fail(Status.CANCELLED.withCause(e).asRuntimeException());
+            if (requestPath == null) {
+                close(true);
+            }
+        } catch (RuntimeException e) {
+            close(true);
+            exchange.fail(e);
+        } finally {
+            current = null;
+            exchange.deliver();
+        }
+        return grpcResponse;
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    /** Half-closes the stream, or cancels it if {@code cancel} is set. */
+    void close(boolean cancel) {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            if (cancel) {
+                requestStream.cancel("Bidi session closed by the client", null);
+            } else {
+                requestStream.onCompleted();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.debug("Unable to close bidi session: {}", e.getMessage());
+        }
+    }
+
+    private void openStream() {
+        SessionObserver sessionObserver = new SessionObserver();
+        observer = sessionObserver;
+        requestStream =
+                (ClientCallStreamObserver<ByteString>)
+                        dynamicClient.openBidiStream(sessionObserver, callOptions);
+        open = true;
+    }
+
+    private CallTimings currentTimings() {
+        Exchange exchange = current;
+        return exchange == null ? null : exchange.timings;
+    }
+
+    private boolean matches(Exchange exchange, DynamicMessage response) {
+        return responsePath == null
+                || exchange.key == null
+                || exchange.key.equals(correlationValue(response, responsePath));
+    }
+
+    /** Returns the value at the field path as a string, or null if a field on the path is unset. */
+    static String correlationValue(Message message, List<String> path) {
+        Object value = message;
+        for (String name : path) {
+            if (!(value instanceof Message)) {
+                return null;
+            }
+            Message parent = (Message) value;
+            Descriptors.FieldDescriptor field = parent.getDescriptorForType().findFieldByName(name);
+            if (field == null
+                    || field.isRepeated()
+                    || (field.hasPresence() && !parent.hasField(field))) {
+                return null;
+            }
+            value = parent.getField(field);
+        }
+        return value instanceof Message ? null : String.valueOf(value);
+    }
+
+    private final class SessionObserver
+            implements ClientResponseObserver<ByteString, DynamicMessage> {
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<ByteString> requestStream) {
+            readyGate = ReadyGate.install(requestStream);
+        }
+
+        @Override
+        public void onNext(DynamicMessage response) {
+            Exchange exchange = current;
+            if (observer != this || exchange == null || !matches(exchange, response)) {
+                LOGGER.debug("Dropped a bidi session response without matching request");
+                return;
+            }
+            exchange.complete(response);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (observer != this) {
+                return;
+            }
+            open = false;
+            readyGate.close();
+            Exchange exchange = current;
+            if (exchange != null) {
+                exchange.fail(t);
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            if (observer != this) {
+                return;
+            }
+            open = false;
+            readyGate.close();
+            Exchange exchange = current;
+            if (exchange != null) {
+                exchange.fail(
+                        Status.UNAVAILABLE
+                                .withDescription("Bidi session closed by the server")
+                                .asRuntimeException());
+            }
+        }
+    }
+
+    private static final class Exchange {
+        private final String key;
+        private final StreamObserver<DynamicMessage> writer;
+        private final CallTimings timings;
+        private final boolean deferred;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private DynamicMessage response;
+        private Throwable failure;
+
+        private Exchange(
+                String key,
+                StreamObserver<DynamicMessage> writer,
+                CallTimings timings,
+                boolean deferred) {
+            this.key = key;
+            this.writer = writer;
+            this.timings = timings;
+            this.deferred = deferred;
+        }
+
+        synchronized void complete(DynamicMessage response) {
+            if (done.getCount() > 0) {
+                if (deferred) {
+                    this.response = response;
+                } else {
+                    writer.onNext(response);
+                    writer.onCompleted();
+                }
+                done.countDown();
+            }
+        }
+
+        synchronized void fail(Throwable t) {
+            if (done.getCount() > 0) {
+                if (deferred) {
+                    failure = t;
+                } else {
+                    writer.onError(t);
+                }
+                done.countDown();
+            }
+        }
+
+        /** Passes a deferred outcome to the writer, on the thread which waited for it. */
+        synchronized void deliver() {
+            if (response != null) {
+                writer.onNext(response);
+                writer.onCompleted();
+            } else if (failure != null) {
+                writer.onError(failure);
+            }
+            response = null;
+            failure = null;
+        }
+    }
+}
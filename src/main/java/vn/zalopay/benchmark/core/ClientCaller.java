@@ -5,54 +5,106 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.net.HostAndPort;
-import com.google.protobuf.DescriptorProtos;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
 import com.google.protobuf.util.JsonFormat;
 
 import io.grpc.CallOptions;
+import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 
+import org.apache.jmeter.util.JMeterUtils;
+
 import vn.zalopay.benchmark.core.channel.ComponentObserver;
+import vn.zalopay.benchmark.core.channel.ThreadlessExecutor;
+import vn.zalopay.benchmark.core.config.CallExecutor;
+import vn.zalopay.benchmark.core.config.ChannelOptions;
 import vn.zalopay.benchmark.core.config.GrpcRequestConfig;
 import vn.zalopay.benchmark.core.grpc.ChannelFactory;
 import vn.zalopay.benchmark.core.grpc.DynamicGrpcClient;
+import vn.zalopay.benchmark.core.message.MessageSource;
 import vn.zalopay.benchmark.core.message.Reader;
 import vn.zalopay.benchmark.core.message.Writer;
+import vn.zalopay.benchmark.core.metrics.BackendStats;
+import vn.zalopay.benchmark.core.metrics.CallStats;
+import vn.zalopay.benchmark.core.metrics.ErrorStats;
+import vn.zalopay.benchmark.core.metrics.LatencyRecorder;
+import vn.zalopay.benchmark.core.metrics.RpcMetrics;
+import vn.zalopay.benchmark.core.protobuf.DescriptorCache;
 import vn.zalopay.benchmark.core.protobuf.ProtoMethodName;
-import vn.zalopay.benchmark.core.protobuf.ProtocInvoker;
 import vn.zalopay.benchmark.core.protobuf.ServiceResolver;
+import vn.zalopay.benchmark.core.specification.AsyncCallResult;
 import vn.zalopay.benchmark.core.specification.GrpcResponse;
+import vn.zalopay.benchmark.util.VirtualThreads;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
 public class ClientCaller implements AutoCloseable {
     private static final org.slf4j.Logger LOGGER = org.slf4j.LoggerFactory.getLogger(ClientCaller.class);
+    /** Where response callbacks run, see {@link CallExecutor}; {@code channel} by default. */
+    public static final String CALL_EXECUTOR_PROPERTY = "grpc.request.callExecutor";
+    private static final long REBUILD_BACKOFF_INITIAL_MILLIS = 100;
+    private static final long REBUILD_BACKOFF_MAX_MILLIS = 10_000;
+    private static volatile boolean virtualUsersCapped;
     private Descriptors.MethodDescriptor methodDescriptor;
     private JsonFormat.TypeRegistry registry;
     private DynamicGrpcClient dynamicClient;
-    private ImmutableList<DynamicMessage> requestMessages;
+    private ImmutableList<ByteString> requestPayloads;
+    private DynamicMessage requestMessage;
+    private BidiStreamSession bidiSession;
+    private String messageSourceFile;
+    private MessageSource fileMessageSource;
     private ManagedChannel channel;
     private HostAndPort hostAndPort;
     private Map<String, String> metadataMap;
+    private String lastRequestJson;
+    private long lastBuildNanos = -1;
+    private String requestSamplerData;
+    private String lastMetadata;
+    private String metadataString = "";
     private boolean tls;
     private String caPemPath;
     private String clientCertPemPath;
     private String clientKeyPemPath;
     private int awaitTerminationTimeout;
+    private boolean sharedChannel;
+    private boolean sharedChannelReleased;
+    private long rebuildBackoffMillis;
+    private long nextRebuildNanos;
+    private final Queue<AsyncCallResult> asyncResults = new ConcurrentLinkedQueue<>();
+    private Semaphore asyncInFlight;
+    private int asyncMaxInFlight;
+    private boolean asyncScheduled;
+    private long asyncNextStart;
     private final GrpcRequestConfig requestConfig;
+    private final CallExecutor callExecutor;
     ChannelFactory channelFactory;
 
     public ClientCaller(GrpcRequestConfig requestConfig) {
         this.requestConfig = requestConfig;
+        this.callExecutor =
+                CallExecutor.fromString(JMeterUtils.getPropDefault(CALL_EXECUTOR_PROPERTY, ""));
         this.init(
                 requestConfig.getHostPort(),
                 requestConfig.getProtoFolder(),
@@ -80,19 +132,19 @@ public class ClientCaller implements AutoCloseable {
             channelFactory = ChannelFactory.create();
             ProtoMethodName grpcMethodName = ProtoMethodName.parseFullGrpcMethodName(fullMethod);
 
-            // Fetch the appropriate file descriptors for the service.
-            final DescriptorProtos.FileDescriptorSet fileDescriptorSet;
+            // Fetch the appropriate file descriptors for the service. Compilation is shared by
+            // every thread of the test through the descriptor cache.
+            final DescriptorCache.CompiledProtos compiledProtos;
 
             try {
                 if (requestConfig.getProtoContent() != null
                         && !requestConfig.getProtoContent().trim().isEmpty()) {
-                    fileDescriptorSet =
-                            ProtocInvoker.forInline(
-                                            requestConfig.getProtoContent(),
-                                            requestConfig.getLibContentZipBase64())
-                                    .invoke();
+                    compiledProtos =
+                            DescriptorCache.forInline(
+                                    requestConfig.getProtoContent(),
+                                    requestConfig.getLibContentZipBase64());
                 } else {
-                    fileDescriptorSet = ProtocInvoker.forConfig(testProtoFiles, libFolder).invoke();
+                    compiledProtos = DescriptorCache.forConfig(testProtoFiles, libFolder);
                 }
             } catch (Exception e) {
                 shutdownNettyChannel();
@@ -101,18 +153,12 @@ public class ClientCaller implements AutoCloseable {
             }
 
             // Set up the dynamic client and make the call.
-            ServiceResolver serviceResolver =
-                    ServiceResolver.fromFileDescriptorSet(fileDescriptorSet);
+            ServiceResolver serviceResolver = compiledProtos.getServiceResolver();
             methodDescriptor = serviceResolver.resolveServiceMethod(grpcMethodName);
 
             createDynamicClient();
 
-            // This collects all known types into a registry for resolution of potential "Any"
-            // types.
-            registry =
-                    JsonFormat.TypeRegistry.newBuilder()
-                            .add(serviceResolver.listMessageTypes())
-                            .build();
+            registry = compiledProtos.getTypeRegistry();
         } catch (Throwable t) {
             shutdownNettyChannel();
             throw t;
@@ -170,13 +216,25 @@ public class ClientCaller implements AutoCloseable {
                         .clientKeyPemPath(clientKeyPemPath)
                         .clientKeyPassword(requestConfig.getClientKeyPassword())
                         .build();
+        if (requestConfig.getChannelsPerTarget() > 0) {
+            channel =
+                    channelFactory.acquireSharedChannel(
+                            hostAndPort,
+                            securityConfig,
+                            ChannelOptions.of(requestConfig),
+                            requestConfig.getChannelsPerTarget());
+            sharedChannel = true;
+            dynamicClient =
+                    DynamicGrpcClient.create(
+                            methodDescriptor, channelFactory.withMetadata(channel, metadataMap));
+            return;
+        }
         channel =
                 channelFactory.createChannel(
                         hostAndPort,
                         securityConfig,
                         metadataMap,
-                        requestConfig.getMaxInboundMessageSize(),
-                        requestConfig.getMaxInboundMetadataSize());
+                        ChannelOptions.of(requestConfig));
         dynamicClient = DynamicGrpcClient.create(methodDescriptor, channel);
     }
 
@@ -188,122 +246,507 @@ public class ClientCaller implements AutoCloseable {
         return channel.isTerminated();
     }
 
+    /**
+     * Parses the request JSON and metadata for the next call and returns the request rendered as
+     * JSON for the sampler data. The last inputs are remembered, so when the substituted request
+     * and metadata are identical to the previous sample (static payloads) nothing is re-parsed.
+     */
     public String buildRequestAndMetadata(String jsonData, String metadata) {
+        long buildStart = System.nanoTime();
         try {
-            metadataMap.clear();
-            metadataMap.putAll(buildHashMetadata(metadata));
-            requestMessages =
-                    Reader.create(methodDescriptor.getInputType(), jsonData, registry).read();
-            return JsonFormat.printer()
-                    .includingDefaultValueFields()
-                    .usingTypeRegistry(registry)
-                    .print(requestMessages.get(0));
+            if (lastMetadata == null || !lastMetadata.equals(metadata)) {
+                lastMetadata = null;
+                metadataMap.clear();
+                metadataMap.putAll(buildHashMetadata(metadata));
+                metadataString =
+                        metadataMap.entrySet().stream()
+                                .map(e -> e.getKey() + ": " + e.getValue())
+                                .collect(Collectors.joining("\n"));
+                lastMetadata = metadata;
+            }
+            if (lastRequestJson == null || !lastRequestJson.equals(jsonData)) {
+                lastRequestJson = null;
+                ImmutableList<DynamicMessage> requestMessages =
+                        Reader.create(methodDescriptor.getInputType(), jsonData, registry).read();
+                requestPayloads = DynamicGrpcClient.serialize(requestMessages);
+                requestMessage = requestMessages.get(0);
+                requestSamplerData =
+                        JsonFormat.printer()
+                                .includingDefaultValueFields()
+                                .usingTypeRegistry(registry)
+                                .print(requestMessages.get(0));
+                lastRequestJson = jsonData;
+            }
+            lastBuildNanos = System.nanoTime() - buildStart;
+            return requestSamplerData;
         } catch (IllegalArgumentException e) {
-            shutdownNettyChannel();
+            // A bad request or metadata is a client-side error: the channel is kept for the next
+            // sample instead of being rebuilt
             throw e;
         } catch (Exception e) {
-            shutdownNettyChannel();
             throw new RuntimeException("Caught exception while parsing request for rpc", e);
         }
     }
 
     public GrpcResponse call(String deadlineMs) {
         long deadline = parsingDeadlineTime(deadlineMs);
-        GrpcResponse grpcResponse = new GrpcResponse();
-        StreamObserver<DynamicMessage> streamObserver =
-                ComponentObserver.of(Writer.create(grpcResponse, registry));
+        ensureUsableChannel();
+        GrpcResponse grpcResponse = newGrpcResponse(false);
+        StreamObserver<DynamicMessage> streamObserver = responseObserver(grpcResponse);
         long t0 = System.nanoTime();
-        // Pre-call logging
+        boolean logCalls = CallStats.isCallLoggingEnabled();
+        CallStats.get().callStarted();
         try {
-            LOGGER.info(
-                    "[GRPC] Request start method={} target={} deadlineMs={} metadataKeys={}",
-                    methodDescriptor.getFullName(),
-                    hostAndPort.toString(),
+            if (logCalls) {
+                LOGGER.info(
+                        "[GRPC] Request start method={} target={} deadlineMs={} metadataKeys={}",
+                        methodDescriptor.getFullName(),
+                        hostAndPort,
+                        deadline,
+                        String.join(", ", metadataMap.keySet()));
+            }
+            callBlocking(
+                    options ->
+                            dynamicClient.blockingUnaryCall(
+                                    requestPayloads, streamObserver, options),
                     deadline,
-                    String.join(", ", metadataMap.keySet()));
-            dynamicClient
-                    .blockingUnaryCall(requestMessages, streamObserver, callOptions(deadline))
-                    .get();
-            long elapsed = java.util.concurrent.TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
-            int size = 0;
-            try {
-                String s = grpcResponse.getGrpcMessageString();
-                size = s == null ? 0 : s.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
-            } catch (Exception ignore) {}
-            LOGGER.info(
-                    "[GRPC] Response OK method={} elapsedMs={} sizeBytes={}",
-                    methodDescriptor.getFullName(),
-                    elapsed,
-                    size);
+                    grpcResponse);
+            CallStats.get().callSucceeded();
+            if (logCalls) {
+                LOGGER.info(
+                        "[GRPC] Response OK method={} elapsedMs={} sizeBytes={}",
+                        methodDescriptor.getFullName(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0),
+                        grpcResponse.getResponseBytes());
+            }
         } catch (Exception e) {
             // One-shot retry for transient transport errors (e.g., UNAVAILABLE) to smooth initial
-            // connection races without burdening the server. Keep it conservative.
+            // connection races without burdening the server. Keep it conservative. A service
+            // config replaces it: the channel then retries (or hedges) as the config says.
             Throwable cause = (e instanceof ExecutionException) ? e.getCause() : e;
             boolean retried = false;
             if (cause instanceof io.grpc.StatusRuntimeException) {
                 io.grpc.StatusRuntimeException sre = (io.grpc.StatusRuntimeException) cause;
-                LOGGER.error(
-                        "[GRPC] Request failed method={} code={} desc={} trailers={}",
-                        methodDescriptor.getFullName(),
-                        sre.getStatus().getCode(),
-                        sre.getStatus().getDescription(),
-                        String.valueOf(sre.getTrailers()));
-                if (sre.getStatus().getCode() == io.grpc.Status.Code.UNAVAILABLE) {
+                if (ErrorStats.get().isDetailed(sre.getStatus().getCode())) {
+                    LOGGER.error(
+                            "[GRPC] Request failed method={} code={} desc={} trailers={}",
+                            methodDescriptor.getFullName(),
+                            sre.getStatus().getCode(),
+                            sre.getStatus().getDescription(),
+                            String.valueOf(sre.getTrailers()));
+                }
+                if (sre.getStatus().getCode() == io.grpc.Status.Code.UNAVAILABLE
+                        && Strings.isNullOrEmpty(requestConfig.getServiceConfig())) {
                     try { Thread.sleep(150); } catch (InterruptedException ignore) {}
                     try {
-                        LOGGER.info("[GRPC] Retry once after UNAVAILABLE for method={}", methodDescriptor.getFullName());
-                        dynamicClient
-                                .blockingUnaryCall(
-                                        requestMessages, streamObserver, callOptions(deadline))
-                                .get();
+                        grpcResponse.setThrowable(null);
+                        LOGGER.debug(
+                                "[GRPC] Retry once after UNAVAILABLE for method={}",
+                                methodDescriptor.getFullName());
+                        callBlocking(
+                                options ->
+                                        dynamicClient.blockingUnaryCall(
+                                                requestPayloads, streamObserver, options),
+                                deadline,
+                                grpcResponse);
                         retried = true;
-                        long elapsed = java.util.concurrent.TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
-                        int size = 0;
-                        try {
-                            String s = grpcResponse.getGrpcMessageString();
-                            size = s == null ? 0 : s.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
-                        } catch (Exception ignore2) {}
-                        LOGGER.info(
-                                "[GRPC] Response OK (after retry) method={} elapsedMs={} sizeBytes={}",
-                                methodDescriptor.getFullName(),
-                                elapsed,
-                                size);
+                        CallStats.get().callSucceeded();
+                        if (logCalls) {
+                            LOGGER.info(
+                                    "[GRPC] Response OK (after retry) method={} elapsedMs={}"
+                                            + " sizeBytes={}",
+                                    methodDescriptor.getFullName(),
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0),
+                                    grpcResponse.getResponseBytes());
+                        }
                     } catch (Exception retryEx) {
                         cause = (retryEx instanceof ExecutionException) ? retryEx.getCause() : retryEx;
                     }
                 }
             }
             if (!retried) {
+                CallStats.get().callFailed();
                 grpcResponse.setSuccess(false);
                 grpcResponse.setThrowable(cause);
-                // Log final failure with cause chain
-                StringBuilder sb = new StringBuilder();
-                Throwable t = cause;
-                int depth = 0;
-                while (t != null && depth++ < 6) { sb.append(t.toString()).append(" | "); t = t.getCause(); }
-                LOGGER.error(
-                        "[GRPC] Response FAIL method={} target={} reason={}",
-                        methodDescriptor.getFullName(),
-                        hostAndPort,
-                        sb.toString());
-                shutdownNettyChannel();
             }
         }
+        recordCall(grpcResponse);
+        if (!grpcResponse.isSuccess() && grpcResponse.isDetailedError()) {
+            // Log final failure with cause chain
+            StringBuilder sb = new StringBuilder();
+            Throwable t = grpcResponse.getThrowable();
+            int depth = 0;
+            while (t != null && depth++ < 6) { sb.append(t.toString()).append(" | "); t = t.getCause(); }
+            LOGGER.error(
+                    "[GRPC] Response FAIL method={} target={} reason={}",
+                    methodDescriptor.getFullName(),
+                    hostAndPort,
+                    sb.toString());
+        }
+
+        return grpcResponse;
+    }
+
+    /**
+     * Sends {@code calls} unary calls without waiting for their responses. A new call starts every
+     * {@code 1 / ratePerSecond} seconds (as fast as possible when the rate is not positive), and no
+     * more than {@code maxInFlight} calls are outstanding at any time, counting the calls of
+     * previous batches. The arrival schedule carries over from one batch to the next, and the
+     * batch does not wait for its own calls: it returns the calls which completed since the
+     * previous batch, in completion order, and calls still running are returned by the next batch
+     * or {@link #awaitAsyncCalls}. Only the in-flight cap slows the sender down.
+     */
+    public List<AsyncCallResult> callAsync(
+            String deadlineMs, int calls, double ratePerSecond, int maxInFlight) {
+        long deadline = parsingDeadlineTime(deadlineMs);
+        ensureUsableChannel();
+        if (asyncInFlight == null) {
+            asyncMaxInFlight = Math.max(1, maxInFlight);
+            asyncInFlight = new Semaphore(asyncMaxInFlight);
+        }
+        long intervalNanos = ratePerSecond > 0 ? (long) (1_000_000_000L / ratePerSecond) : 0;
+        long now = System.nanoTime();
+        // A schedule behind by more than a whole batch was paused between samples: restart it
+        if (!asyncScheduled || now - asyncNextStart > intervalNanos * Math.max(1, calls)) {
+            asyncNextStart = now;
+            asyncScheduled = true;
+        }
+        int sent = 0;
+        try {
+            for (; sent < calls; sent++) {
+                if (intervalNanos > 0) {
+                    parkUntil(asyncNextStart);
+                    asyncNextStart += intervalNanos;
+                }
+                asyncInFlight.acquire();
+                sendAsync(deadline, asyncInFlight, asyncResults);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted after sending {} of {} async calls", sent, calls);
+        }
+        return drainAsyncResults();
+    }
+
+    /**
+     * Waits up to {@code timeoutMs} for the async calls still in flight and returns the calls
+     * which completed since the last batch.
+     */
+    public List<AsyncCallResult> awaitAsyncCalls(long timeoutMs) {
+        if (asyncInFlight != null) {
+            try {
+                // Every call returns its permit on completion: owning them all means none is left
+                if (asyncInFlight.tryAcquire(
+                        asyncMaxInFlight, timeoutMs, TimeUnit.MILLISECONDS)) {
+                    asyncInFlight.release(asyncMaxInFlight);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return drainAsyncResults();
+    }
+
+    private List<AsyncCallResult> drainAsyncResults() {
+        List<AsyncCallResult> completed = new ArrayList<>();
+        AsyncCallResult result;
+        while ((result = asyncResults.poll()) != null) {
+            completed.add(result);
+        }
+        return completed;
+    }
+
+    /**
+     * Connects the channel before the first sample: drives it to {@code READY} (connection, TLS and
+     * HTTP/2 setup) and waits up to {@code timeoutMs} for it. Needs no request, so it can run
+     * before the variables of the request are bound. Returns whether the channel became ready.
+     */
+    public boolean awaitReady(long timeoutMs) {
+        long start = System.nanoTime();
+        ensureUsableChannel();
+        boolean ready;
+        try {
+            ready = waitUntilReady(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (ready) {
+            LOGGER.debug(
+                    "[GRPC] Warm-up target={} ready after {} ms",
+                    hostAndPort,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } else {
+            LOGGER.warn(
+                    "[GRPC] Warm-up target={} not ready after {} ms, state={}",
+                    hostAndPort,
+                    timeoutMs,
+                    channel.getState(false));
+        }
+        return ready;
+    }
+
+    /**
+     * Sends {@code calls} throwaway calls of the built request, which warm up the request and
+     * response code paths before measurement starts. Warm-up calls wait for the channel to be
+     * ready, are not recorded anywhere and their failures are ignored; only unary and server
+     * streaming methods get them. Returns the number of failed calls.
+     */
+    public int warmUpCalls(int calls, String deadlineMs) {
+        if (calls > 0 && methodDescriptor.isClientStreaming()) {
+            LOGGER.info(
+                    "[GRPC] Warm-up calls skipped for client streaming method={}",
+                    methodDescriptor.getFullName());
+            return 0;
+        }
+        long deadline = parsingDeadlineTime(deadlineMs);
+        ensureUsableChannel();
+        int failed = 0;
+        for (int i = 0; i < calls; i++) {
+            GrpcResponse grpcResponse = newGrpcResponse(false);
+            StreamObserver<DynamicMessage> streamObserver = responseObserver(grpcResponse);
+            try {
+                callBlocking(
+                        options ->
+                                methodDescriptor.isServerStreaming()
+                                        ? dynamicClient.callServerStreaming(
+                                                requestPayloads,
+                                                streamObserver,
+                                                options.withWaitForReady())
+                                        : dynamicClient.blockingUnaryCall(
+                                                requestPayloads,
+                                                streamObserver,
+                                                options.withWaitForReady()),
+                        deadline,
+                        grpcResponse);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        LOGGER.debug("[GRPC] Warm-up target={} calls={} failed={}", hostAndPort, calls, failed);
+        return failed;
+    }
+
+    /** Asks the channel to connect and waits up to {@code timeoutMs} for it to become ready. */
+    private boolean waitUntilReady(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        ConnectivityState state = channel.getState(true);
+        while (state != ConnectivityState.READY) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            CountDownLatch changed = new CountDownLatch(1);
+            channel.notifyWhenStateChanged(state, changed::countDown);
+            changed.await(remaining, TimeUnit.NANOSECONDS);
+            // Requesting a connection again leaves IDLE after an idle timeout or a GOAWAY
+            state = channel.getState(true);
+        }
+        return true;
+    }
+
+    /**
+     * Runs {@code users} virtual users at once, each sending one blocking unary call on a thread of
+     * its own: a virtual thread on Java 21 and later, a platform thread otherwise (see {@link
+     * VirtualThreads}). Blocks until every user is done and returns the results in completion
+     * order. The calls are recorded on the calling thread, so the latency recorder keeps one
+     * histogram per sampler thread rather than one per user.
+     *
+     * <p>Every user is a single call on the channel of this caller, ending within the sample. On
+     * platform threads, users beyond the size of the pool wait for a thread of an earlier user.
+     */
+    public List<AsyncCallResult> callVirtualUsers(String deadlineMs, int users) {
+        long deadline = parsingDeadlineTime(deadlineMs);
+        ensureUsableChannel();
+        if (users > VirtualThreads.concurrency() && !virtualUsersCapped) {
+            virtualUsersCapped = true;
+            LOGGER.warn(
+                    "[GRPC] {} virtual users per sample without virtual threads: at most {} run at"
+                            + " once, raise {} or run on Java 21+",
+                    users,
+                    VirtualThreads.concurrency(),
+                    VirtualThreads.PLATFORM_THREADS_PROPERTY);
+        }
+        Queue<AsyncCallResult> results = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(Math.max(0, users));
+        int started = 0;
+        try {
+            for (; started < users; started++) {
+                VirtualThreads.executor()
+                        .execute(
+                                () -> {
+                                    try {
+                                        results.add(callAsUser(deadline));
+                                    } finally {
+                                        done.countDown();
+                                    }
+                                });
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for {} virtual users", started);
+        }
+        List<AsyncCallResult> completed = new ArrayList<>(results);
+        completed.forEach(result -> recordCall(result.getResponse()));
+        return completed;
+    }
+
+    private AsyncCallResult callAsUser(long deadline) {
+        GrpcResponse grpcResponse = newGrpcResponse(false);
+        long startTime = System.currentTimeMillis();
+        CallStats.get().callStarted();
+        try {
+            callBlocking(
+                    options ->
+                            dynamicClient.blockingUnaryCall(
+                                    requestPayloads, responseObserver(grpcResponse), options),
+                    deadline,
+                    grpcResponse);
+            CallStats.get().callSucceeded();
+        } catch (Exception e) {
+            CallStats.get().callFailed();
+            grpcResponse.setSuccess(false);
+            if (grpcResponse.getThrowable() == null) {
+                grpcResponse.setThrowable(e instanceof ExecutionException ? e.getCause() : e);
+            }
+        }
+        return new AsyncCallResult(grpcResponse, startTime, System.currentTimeMillis());
+    }
+
+    private void sendAsync(long deadline, Semaphore inFlight, Queue<AsyncCallResult> results) {
+        GrpcResponse grpcResponse = newGrpcResponse(false);
+        long startTime = System.currentTimeMillis();
+        CallStats.get().callStarted();
+        ListenableFuture<Void> future;
+        try {
+            future =
+                    dynamicClient.blockingUnaryCall(
+                            requestPayloads,
+                            responseObserver(grpcResponse),
+                            callOptions(deadline, grpcResponse));
+        } catch (RuntimeException e) {
+            grpcResponse.setSuccess(false);
+            grpcResponse.setThrowable(e);
+            future = Futures.immediateFailedFuture(e);
+        }
+        Futures.addCallback(
+                future,
+                new FutureCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        CallStats.get().callSucceeded();
+                        complete();
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        CallStats.get().callFailed();
+                        complete();
+                    }
+
+                    private void complete() {
+                        recordCall(grpcResponse);
+                        results.add(
+                                new AsyncCallResult(
+                                        grpcResponse, startTime, System.currentTimeMillis()));
+                        inFlight.release();
+                    }
+                },
+                MoreExecutors.directExecutor());
+    }
+
+    static void parkUntil(long deadlineNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
 
+    /**
+     * Sends the request as one message on this caller's bidi session and waits for the matching
+     * response. The session stream is opened by the first call, kept open across calls and closed
+     * with the channel. Responses are matched by {@code correlationField} (see {@link
+     * BidiStreamSession}) or by order when it is empty.
+     */
+    public GrpcResponse callBidiSession(String deadlineMs, String correlationField) {
+        long deadline = parsingDeadlineTime(deadlineMs);
+        ensureUsableChannel();
+        if (bidiSession == null) {
+            // The session outlives samples, so no thread drains its callbacks between them: with
+            // THREADLESS they only hand the response over and the sampler thread renders it
+            bidiSession =
+                    new BidiStreamSession(
+                            dynamicClient,
+                            correlationField,
+                            this::responseObserver,
+                            callExecutor == CallExecutor.CHANNEL
+                                    ? CallOptions.DEFAULT
+                                    : CallOptions.DEFAULT.withExecutor(
+                                            MoreExecutors.directExecutor()),
+                            callExecutor == CallExecutor.THREADLESS);
+        }
+        CallStats.get().callStarted();
+        GrpcResponse grpcResponse =
+                bidiSession.exchange(
+                        requestPayloads.get(0),
+                        requestMessage,
+                        deadline,
+                        newGrpcResponse(false));
+        recordCall(grpcResponse);
+        if (grpcResponse.isSuccess()) {
+            CallStats.get().callSucceeded();
+        } else {
+            CallStats.get().callFailed();
+        }
         return grpcResponse;
     }
 
     public GrpcResponse callServerStreaming(String deadlineMs) {
+        return callServerStreaming(deadlineMs, false);
+    }
+
+    /**
+     * Sends the request and waits until the server closes the stream. The response carries the
+     * message count, bytes and timing; with {@code recordMessageTimings} it also keeps the arrival
+     * time and size of every message. A failed stream is reported through the response, together
+     * with the messages received before the failure.
+     */
+    public GrpcResponse callServerStreaming(String deadlineMs, boolean recordMessageTimings) {
         long deadline = parsingDeadlineTime(deadlineMs);
-        GrpcResponse grpcResponse = new GrpcResponse();
-        StreamObserver<DynamicMessage> streamObserver =
-                ComponentObserver.of(Writer.create(grpcResponse, registry));
+        ensureUsableChannel();
+        GrpcResponse grpcResponse = newGrpcResponse(recordMessageTimings);
+        StreamObserver<DynamicMessage> streamObserver = responseObserver(grpcResponse);
+        CallStats.get().callStarted();
         try {
-            dynamicClient
-                    .callServerStreaming(requestMessages, streamObserver, callOptions(deadline))
-                    .get();
+            callBlocking(
+                    options ->
+                            dynamicClient.callServerStreaming(
+                                    requestPayloads, streamObserver, options),
+                    deadline,
+                    grpcResponse);
+            CallStats.get().callSucceeded();
         } catch (Exception e) {
-            shutdownNettyChannel();
+            CallStats.get().callFailed();
+            grpcResponse.setSuccess(false);
+            if (grpcResponse.getThrowable() == null) {
+                grpcResponse.setThrowable(e instanceof ExecutionException ? e.getCause() : e);
+            }
+        }
+        recordCall(grpcResponse);
+        if (!grpcResponse.isSuccess() && grpcResponse.isDetailedError()) {
+            LOGGER.error(
+                    "[GRPC] Stream FAIL method={} target={} messages={} reason={}",
+                    methodDescriptor.getFullName(),
+                    hostAndPort,
+                    grpcResponse.getMessageCount(),
+                    String.valueOf(grpcResponse.getThrowable()));
         }
 
         return grpcResponse;
@@ -311,44 +754,201 @@ public class ClientCaller implements AutoCloseable {
 
     public GrpcResponse callClientStreaming(String deadlineMs) {
         long deadline = parsingDeadlineTime(deadlineMs);
-        GrpcResponse output = new GrpcResponse();
-        StreamObserver<DynamicMessage> streamObserver =
-                ComponentObserver.of(Writer.create(output, registry));
+        ensureUsableChannel();
+        GrpcResponse output = newGrpcResponse(false);
+        StreamObserver<DynamicMessage> streamObserver = responseObserver(output);
+        CallStats.get().callStarted();
         try {
-            dynamicClient
-                    .callClientStreaming(requestMessages, streamObserver, callOptions(deadline))
-                    .get();
+            callBlocking(
+                    options ->
+                            dynamicClient.callClientStreaming(
+                                    requestPayloads, streamObserver, options),
+                    deadline,
+                    output);
+            CallStats.get().callSucceeded();
         } catch (Exception e) {
-            shutdownNettyChannel();
+            CallStats.get().callFailed();
+            if (output.getThrowable() == null) {
+                output.setThrowable(e instanceof ExecutionException ? e.getCause() : e);
+            }
+            recordCall(output);
             throw new RuntimeException(
                     String.format(
                             "Caught exception while waiting for rpc %s",
-                            getDetailedErrorSendGRPC(e)),
+                            getDetailedErrorSendGRPC(e, output)),
                     e);
         }
+        recordCall(output);
         return output;
     }
 
+    /**
+     * Streams {@code messages} messages (one pass over the source if not positive) to the method
+     * at {@code messagesPerSecond} (unpaced if not positive), sending only when the stream is ready
+     * for more. The messages come from the JSON-lines file {@code jsonLinesFile}, parsed once and
+     * cycled, or repeat the request when it is empty. Failures are reported through the response.
+     */
+    public GrpcResponse callClientStreaming(
+            String deadlineMs, int messages, double messagesPerSecond, String jsonLinesFile) {
+        long deadline = parsingDeadlineTime(deadlineMs);
+        ensureUsableChannel();
+        GrpcResponse grpcResponse = newGrpcResponse(false);
+        CallStats.get().callStarted();
+        try {
+            new ClientStreamUpload(responseObserver(grpcResponse), grpcResponse)
+                    .run(
+                            dynamicClient,
+                            callOptions(deadline, grpcResponse),
+                            messageSource(jsonLinesFile),
+                            messages,
+                            messagesPerSecond);
+        } catch (RuntimeException e) {
+            grpcResponse.setSuccess(false);
+            grpcResponse.setThrowable(e);
+        }
+        recordCall(grpcResponse);
+        if (grpcResponse.isSuccess()) {
+            CallStats.get().callSucceeded();
+        } else {
+            CallStats.get().callFailed();
+            if (grpcResponse.isDetailedError()) {
+                LOGGER.error(
+                        "[GRPC] Client stream FAIL method={} target={} sent={} reason={}",
+                        methodDescriptor.getFullName(),
+                        hostAndPort,
+                        grpcResponse.getSentMessageCount(),
+                        String.valueOf(grpcResponse.getThrowable()));
+            }
+        }
+        return grpcResponse;
+    }
+
+    private MessageSource messageSource(String jsonLinesFile) {
+        if (Strings.isNullOrEmpty(jsonLinesFile)) {
+            return MessageSource.repeating(requestPayloads.get(0));
+        }
+        if (!jsonLinesFile.equals(messageSourceFile)) {
+            fileMessageSource =
+                    MessageSource.fromJsonLines(
+                            jsonLinesFile, methodDescriptor.getInputType(), registry);
+            messageSourceFile = jsonLinesFile;
+        }
+        return fileMessageSource;
+    }
+
     public GrpcResponse callBidiStreaming(String deadlineMs) {
         long deadline = parsingDeadlineTime(deadlineMs);
-        GrpcResponse output = new GrpcResponse();
-        StreamObserver<DynamicMessage> streamObserver =
-                ComponentObserver.of(Writer.create(output, registry));
+        ensureUsableChannel();
+        GrpcResponse output = newGrpcResponse(false);
+        StreamObserver<DynamicMessage> streamObserver = responseObserver(output);
+        CallStats.get().callStarted();
         try {
-            dynamicClient
-                    .callBidiStreaming(requestMessages, streamObserver, callOptions(deadline))
-                    .get();
+            callBlocking(
+                    options ->
+                            dynamicClient.callBidiStreaming(
+                                    requestPayloads, streamObserver, options),
+                    deadline,
+                    output);
+            CallStats.get().callSucceeded();
         } catch (Exception e) {
-            shutdownNettyChannel();
+            CallStats.get().callFailed();
+            if (output.getThrowable() == null) {
+                output.setThrowable(e instanceof ExecutionException ? e.getCause() : e);
+            }
+            recordCall(output);
             throw new RuntimeException(
                     String.format(
                             "Caught exception while waiting for rpc %s",
-                            getDetailedErrorSendGRPC(e)),
+                            getDetailedErrorSendGRPC(e, output)),
                     e);
         }
+        recordCall(output);
         return output;
     }
 
+    private void recordCall(GrpcResponse grpcResponse) {
+        Status.Code code = grpcResponse.getStatusCode();
+        if (code == null) {
+            code = Status.Code.UNKNOWN;
+        }
+        if (!grpcResponse.isSuccess()) {
+            Throwable throwable = grpcResponse.getThrowable();
+            grpcResponse.setDetailedError(
+                    ErrorStats.get()
+                            .failed(
+                                    throwable == null
+                                            ? Status.UNKNOWN
+                                            : Status.fromThrowable(throwable)));
+        }
+        LatencyRecorder.get()
+                .record(methodDescriptor.getFullName(), code, grpcResponse.getElapsedNanos());
+        String backend = grpcResponse.getTimings().getBackend();
+        if (backend != null) {
+            BackendStats.get()
+                    .callCompleted(
+                            backend, grpcResponse.isSuccess(), grpcResponse.getElapsedNanos());
+        }
+        RpcMetrics rpcMetrics = RpcMetrics.get();
+        if (rpcMetrics.isEnabled()) {
+            rpcMetrics.callCompleted(
+                    methodDescriptor.getFullName(),
+                    code,
+                    grpcResponse.getElapsedNanos(),
+                    grpcResponse.getSentMessageCount() > 0
+                            ? grpcResponse.getSentBytes()
+                            : requestBytes(),
+                    grpcResponse.getResponseBytes());
+        }
+    }
+
+    private long requestBytes() {
+        long bytes = 0;
+        for (ByteString payload : requestPayloads) {
+            bytes += payload.size();
+        }
+        return bytes;
+    }
+
+    private StreamObserver<DynamicMessage> responseObserver(GrpcResponse grpcResponse) {
+        return ComponentObserver.of(
+                Writer.create(grpcResponse, registry, requestConfig.getResponseMode()));
+    }
+
+    private GrpcResponse newGrpcResponse(boolean recordMessageTimings) {
+        GrpcResponse grpcResponse = new GrpcResponse(recordMessageTimings);
+        grpcResponse.getTimings().setEncodeNanos(lastBuildNanos);
+        return grpcResponse;
+    }
+
+    /**
+     * Starts a call the sampler thread waits for and waits until it completes. With the {@link
+     * CallExecutor#THREADLESS} call executor the waiting thread runs the callbacks of the call
+     * itself.
+     */
+    private void callBlocking(BlockingCall call, long deadlineMs, GrpcResponse grpcResponse)
+            throws InterruptedException, ExecutionException {
+        CallOptions options = callOptions(deadlineMs, grpcResponse);
+        if (callExecutor != CallExecutor.THREADLESS) {
+            call.start(options).get();
+            return;
+        }
+        ThreadlessExecutor executor = new ThreadlessExecutor();
+        executor.waitAndDrain(call.start(options.withExecutor(executor)));
+    }
+
+    /**
+     * Call options with the deadline, a tracer recording the phases of the call and, with the
+     * {@link CallExecutor#DIRECT} call executor, callbacks run on the transport thread.
+     */
+    private CallOptions callOptions(long deadlineMs, GrpcResponse grpcResponse) {
+        CallOptions result =
+                callOptions(deadlineMs)
+                        .withStreamTracerFactory(grpcResponse.getTimings().tracerFactory());
+        return callExecutor == CallExecutor.DIRECT
+                ? result.withExecutor(MoreExecutors.directExecutor())
+                : result;
+    }
+
     private static CallOptions callOptions(long deadlineMs) {
         CallOptions result = CallOptions.DEFAULT;
         if (deadlineMs > 0) {
@@ -357,7 +957,72 @@ public class ClientCaller implements AutoCloseable {
         return result;
     }
 
+    /**
+     * Makes sure the channel can carry the next call. Failed calls keep the channel, which
+     * reconnects on its own; only a channel which was shut down (or a shared channel which was
+     * given back) is replaced. Rebuilds which follow each other before the new channel ever got
+     * ready wait with an exponential backoff, so a dead target does not turn into a storm of new
+     * connections.
+     */
+    private void ensureUsableChannel() {
+        boolean usable =
+                channel != null
+                        && !channel.isShutdown()
+                        && !(sharedChannel && sharedChannelReleased);
+        if (usable) {
+            if (rebuildBackoffMillis > 0
+                    && channel.getState(false) == ConnectivityState.READY) {
+                rebuildBackoffMillis = 0;
+            }
+            return;
+        }
+        if (rebuildBackoffMillis > 0) {
+            try {
+                parkUntil(nextRebuildNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (bidiSession != null) {
+            bidiSession.close(true);
+            bidiSession = null;
+        }
+        if (sharedChannel) {
+            if (!sharedChannelReleased) {
+                channelFactory.releaseSharedChannel(channel);
+            }
+            sharedChannelReleased = false;
+        } else if (channel != null) {
+            channel.shutdownNow();
+        }
+        createDynamicClient();
+        CallStats.get().channelRebuilt();
+        rebuildBackoffMillis =
+                rebuildBackoffMillis == 0
+                        ? REBUILD_BACKOFF_INITIAL_MILLIS
+                        : Math.min(REBUILD_BACKOFF_MAX_MILLIS, rebuildBackoffMillis * 2);
+        nextRebuildNanos =
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rebuildBackoffMillis);
+        LOGGER.debug(
+                "[GRPC] Rebuilt channel target={} next rebuild not before {} ms",
+                hostAndPort,
+                rebuildBackoffMillis);
+    }
+
     public void shutdownNettyChannel() {
+        if (bidiSession != null) {
+            bidiSession.close(false);
+            bidiSession = null;
+        }
+        if (sharedChannel) {
+            // Shared channels stay open for the other threads and are closed at test end.
+            if (!sharedChannelReleased) {
+                channelFactory.releaseSharedChannel(channel);
+                sharedChannelReleased = true;
+            }
+            return;
+        }
         try {
             if (channel != null) {
                 channel.shutdown();
@@ -383,12 +1048,14 @@ public class ClientCaller implements AutoCloseable {
     }
 
     public String getMetadataString() {
-        return metadataMap.entrySet().stream()
-                .map(e -> e.getKey() + ": " + e.getValue())
-                .collect(Collectors.joining("\n"));
+        return metadataString;
     }
 
-    private String getDetailedErrorSendGRPC(Exception e) {
+    private String getDetailedErrorSendGRPC(Exception e, GrpcResponse output) {
+        if (!output.isDetailedError()) {
+            Status.Code code = output.getStatusCode();
+            return code + ": " + ErrorStats.get().getDescription(code);
+        }
         StringBuilder sb = new StringBuilder();
         Throwable t = e.getCause();
         while (t != null) {
@@ -399,4 +1066,9 @@ public class ClientCaller implements AutoCloseable {
         }
         return sb.toString();
     }
+
+    /** Starts one call with the given options and returns the future of its completion. */
+    private interface BlockingCall {
+        ListenableFuture<Void> start(CallOptions options);
+    }
 }
@@ -0,0 +1,106 @@
+package vn.zalopay.benchmark.core;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DynamicMessage;
+
+import io.grpc.CallOptions;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+
+import vn.zalopay.benchmark.core.channel.ReadyGate;
+import vn.zalopay.benchmark.core.grpc.DynamicGrpcClient;
+import vn.zalopay.benchmark.core.message.MessageSource;
+import vn.zalopay.benchmark.core.specification.GrpcResponse;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * One client streaming call which sends messages from a {@link MessageSource}, optionally paced,
+ * and never queues a message while the transport is not ready, so large uploads do not pile up in
+ * client-side buffers.
+ */
+final class ClientStreamUpload implements ClientResponseObserver<ByteString, DynamicMessage> {
+    private final StreamObserver<DynamicMessage> writer;
+    private final GrpcResponse grpcResponse;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private ClientCallStreamObserver<ByteString> requestStream;
+    private ReadyGate readyGate;
+    private volatile boolean closed;
+
+    ClientStreamUpload(StreamObserver<DynamicMessage> writer, GrpcResponse grpcResponse) {
+        this.writer = writer;
+        this.grpcResponse = grpcResponse;
+    }
+
+    /**
+     * Sends {@code messages} messages (one pass over the source if not positive) at {@code
+     * messagesPerSecond} (unpaced if not positive), half-closes the stream and waits for the
+     * server to close it. Failures are reported through the response.
+     */
+    void run(
+            DynamicGrpcClient dynamicClient,
+            CallOptions callOptions,
+            MessageSource source,
+            int messages,
+            double messagesPerSecond) {
+        int total = messages > 0 ? messages : source.size();
+        long intervalNanos =
+                messagesPerSecond > 0 ? (long) (1_000_000_000L / messagesPerSecond) : 0;
+        dynamicClient.openClientStream(this, callOptions);
+        try {
+            long nextSend = System.nanoTime();
+            for (int i = 0; i < total && !closed; i++) {
+                if (intervalNanos > 0) {
+                    ClientCaller.parkUntil(nextSend);
+                    nextSend += intervalNanos;
+                }
+                if (!readyGate.await(0)) {
+                    break;
+                }
+                ByteString message = source.get(i);
+                requestStream.onNext(message);
+                grpcResponse.recordSentMessage(message.size());
+            }
+            if (!closed) {
+                requestStream.onCompleted();
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            requestStream.cancel("Interrupted while streaming", e);
+            grpcResponse.setSuccess(false);
+            grpcResponse.setThrowable(Status.CANCELLED.withCause(e).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<ByteString> requestStream) {
+        this.requestStream = requestStream;
+        this.readyGate = ReadyGate.install(requestStream);
+    }
+
+    @Override
+    public void onNext(DynamicMessage value) {
+        writer.onNext(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        writer.onError(t);
+        finish();
+    }
+
+    @Override
+    public void onCompleted() {
+        writer.onCompleted();
+        finish();
+    }
+
+    private void finish() {
+        closed = true;
+        readyGate.close();
+        done.countDown();
+    }
+}
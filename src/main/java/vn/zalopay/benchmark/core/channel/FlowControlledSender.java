@@ -0,0 +1,75 @@
+package vn.zalopay.benchmark.core.channel;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+
+import vn.zalopay.benchmark.core.metrics.CallStats;
+
+import java.util.Iterator;
+
+/**
+ * Sends a fixed list of requests on a client or bidi stream from the stream's ready callbacks:
+ * messages are only written while the transport reports {@code isReady()}, the rest waits for the
+ * next {@code onReadyHandler} call, and the stream is half-closed after the last one. Nothing
+ * blocks, and the time between running out of window and the next ready callback is recorded as
+ * flow-control wait in {@link CallStats}.
+ */
+public final class FlowControlledSender<ReqT, RespT> implements ClientResponseObserver<ReqT, RespT> {
+    private final Iterator<ReqT> requests;
+    private final StreamObserver<RespT> responseObserver;
+    private ClientCallStreamObserver<ReqT> requestStream;
+    private long blockedSince;
+    private boolean done;
+
+    public FlowControlledSender(Iterable<ReqT> requests, StreamObserver<RespT> responseObserver) {
+        this.requests = requests.iterator();
+        this.responseObserver = responseObserver;
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<ReqT> requestStream) {
+        this.requestStream = requestStream;
+        requestStream.setOnReadyHandler(this::drain);
+    }
+
+    private synchronized void drain() {
+        if (done) {
+            return;
+        }
+        if (blockedSince != 0) {
+            CallStats.get().flowControlBlocked(System.nanoTime() - blockedSince);
+            blockedSince = 0;
+        }
+        while (requests.hasNext()) {
+            if (!requestStream.isReady()) {
+                blockedSince = System.nanoTime();
+                return;
+            }
+            requestStream.onNext(requests.next());
+        }
+        done = true;
+        requestStream.onCompleted();
+    }
+
+    @Override
+    public void onNext(RespT value) {
+        responseObserver.onNext(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        synchronized (this) {
+            done = true;
+        }
+        responseObserver.onError(t);
+    }
+
+    @Override
+    public void onCompleted() {
+        synchronized (this) {
+            done = true;
+        }
+        responseObserver.onCompleted();
+    }
+}
@@ -0,0 +1,71 @@
+package vn.zalopay.benchmark.core.channel;
+
+import io.grpc.stub.ClientCallStreamObserver;
+
+import vn.zalopay.benchmark.core.metrics.CallStats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets a thread which writes to a stream wait until the transport is ready for another message,
+ * woken up by the stream's {@code onReadyHandler}. Time spent waiting is recorded as flow-control
+ * wait in {@link CallStats}.
+ */
+public final class ReadyGate implements Runnable {
+    private final ClientCallStreamObserver<?> stream;
+    private boolean closed;
+
+    private ReadyGate(ClientCallStreamObserver<?> stream) {
+        this.stream = stream;
+    }
+
+    /** Creates a gate for the stream; must be called from {@code beforeStart}. */
+    public static ReadyGate install(ClientCallStreamObserver<?> stream) {
+        ReadyGate gate = new ReadyGate(stream);
+        stream.setOnReadyHandler(gate);
+        return gate;
+    }
+
+    /**
+     * Waits up to {@code timeoutMs} (forever if not positive) until the stream is ready. Returns
+     * false if the gate was closed or the time ran out first.
+     */
+    public synchronized boolean await(long timeoutMs) throws InterruptedException {
+        if (closed || stream.isReady()) {
+            return !closed;
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            while (!closed && !stream.isReady()) {
+                if (timeoutMs <= 0) {
+                    wait();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+        } finally {
+            CallStats.get().flowControlBlocked(System.nanoTime() - start);
+        }
+        return !closed;
+    }
+
+    /** Releases the waiting thread for good, once the stream is closed. */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized void run() {
+        notifyAll();
+    }
+}
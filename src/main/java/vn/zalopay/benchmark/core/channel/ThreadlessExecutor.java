@@ -0,0 +1,62 @@
+package vn.zalopay.benchmark.core.channel;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Executor for the callbacks of one call, run by the thread which waits for the call instead of a
+ * pool thread, which saves the hand-off to the pool and back per call.
+ *
+ * <p>Callbacks are queued until the waiting thread takes them in {@link #waitAndDrain}. Once the
+ * wait is over, callbacks still arriving (e.g. after an interrupt) run directly on the thread
+ * which submits them.
+ */
+public final class ThreadlessExecutor implements Executor {
+    private final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+    private boolean finished;
+
+    @Override
+    public void execute(Runnable command) {
+        synchronized (this) {
+            if (!finished) {
+                queue.add(command);
+                return;
+            }
+        }
+        command.run();
+    }
+
+    /**
+     * Runs queued callbacks on the calling thread until {@code future} is done, then returns its
+     * value like {@link java.util.concurrent.Future#get()}.
+     */
+    public <T> T waitAndDrain(ListenableFuture<T> future)
+            throws InterruptedException, ExecutionException {
+        // Wakes up the loop should the future complete without a callback of its own
+        future.addListener(() -> {}, this);
+        try {
+            while (!future.isDone()) {
+                queue.take().run();
+            }
+        } finally {
+            finish();
+        }
+        return future.get();
+    }
+
+    private void finish() {
+        Queue<Runnable> remaining = new ArrayDeque<>();
+        synchronized (this) {
+            finished = true;
+            queue.drainTo(remaining);
+        }
+        for (Runnable command : remaining) {
+            command.run();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package vn.zalopay.benchmark.core.config;
+
+import java.util.Locale;
+
+/** Where the response callbacks of a call (observers, response rendering) are run. */
+public enum CallExecutor {
+    /** On the executor of the channel, which then wakes up the waiting sampler thread. */
+    CHANNEL,
+    /**
+     * On the transport thread which read the response, without any hand-off. Responses are
+     * rendered on that thread too, so slow rendering delays the other calls of the event loop.
+     */
+    DIRECT,
+    /**
+     * On the sampler thread itself while it waits for a blocking call, like the blocking stubs of
+     * gRPC do. Calls the sampler thread does not wait for use the channel executor. A bidi
+     * session outlives samples, so its stream callbacks run on the transport thread and only the
+     * response is rendered by the sampler thread.
+     */
+    THREADLESS;
+
+    /** Parses a property value, falling back to {@link #CHANNEL} for blank or unknown values. */
+    public static CallExecutor fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return CHANNEL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return CHANNEL;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package vn.zalopay.benchmark.core.config;
+
+import java.util.Locale;
+
+/** Selects how a sampler drives the method under test. */
+public enum CallMode {
+    /** One blocking unary call per sample. */
+    UNARY,
+    /**
+     * Many unary calls per sample, sent at a target arrival rate with a cap on the calls in flight;
+     * every completed call is reported as a sub-result.
+     */
+    ASYNC_UNARY,
+    /**
+     * One server streaming call per sample, read until the server closes the stream. The time to
+     * first message is reported as latency and every message can be reported as a sub-result.
+     */
+    SERVER_STREAMING,
+    /**
+     * One bidi stream per thread, kept open across samples; each sample sends one message on it
+     * and is timed until the matching response arrives.
+     */
+    BIDI_SESSION,
+    /**
+     * One client streaming call per sample, sending messages from the request or a JSON-lines file
+     * at an optional message rate and within the flow control of the stream.
+     */
+    CLIENT_STREAMING,
+    /**
+     * Many virtual users per sample, each sending one blocking unary call on a thread of its own
+     * (a virtual thread on Java 21 and later); every completed call is reported as a sub-result.
+     */
+    VIRTUAL_USERS;
+
+    /** Parses a saved sampler value, falling back to {@link #UNARY} for blank or unknown values. */
+    public static CallMode fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return UNARY;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return UNARY;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package vn.zalopay.benchmark.core.config;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Channel settings besides the target and security: message-size limits, service config and load
+ * balancing. Compared by value, so channels opened with equal options can be shared.
+ */
+@Value
+@Builder
+public class ChannelOptions {
+    @Builder.Default int maxInboundMessageSize = 4194304;
+    @Builder.Default int maxInboundMetadataSize = 8192;
+
+    /** gRPC service config, inline JSON or the path of a JSON file; empty for none. */
+    String serviceConfig;
+
+    /**
+     * Backends to balance over instead of the host and port: a list of {@code host:port}
+     * separated by commas or whitespace, or a target URI such as {@code dns:///service:8080}.
+     */
+    String targets;
+
+    /** Load balancing policy, {@link LoadBalancingPolicy#AUTO} when null. */
+    LoadBalancingPolicy loadBalancingPolicy;
+
+    /** Returns the channel options of a sampler configuration. */
+    public static ChannelOptions of(GrpcRequestConfig config) {
+        return ChannelOptions.builder()
+                .maxInboundMessageSize(config.getMaxInboundMessageSize())
+                .maxInboundMetadataSize(config.getMaxInboundMetadataSize())
+                .serviceConfig(config.getServiceConfig())
+                .targets(config.getTargets())
+                .loadBalancingPolicy(config.getLoadBalancingPolicy())
+                .build();
+    }
+}
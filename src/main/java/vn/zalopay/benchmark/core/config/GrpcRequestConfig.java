@@ -30,6 +30,16 @@ public class GrpcRequestConfig {
     private String libContentZipBase64; // base64-encoded ZIP of library directory
     @lombok.Builder.Default
     private int awaitTerminationTimeout = 5000;
+    // Number of channels shared by all threads per target; 0 keeps one channel per thread
+    private int channelsPerTarget;
+    // How much of each response is kept; null is treated as FULL
+    private ResponseMode responseMode;
+    // gRPC service config (inline JSON or file path) applied with retries enabled; empty = none
+    private String serviceConfig;
+    // Backends to balance over (host:port list or target URI) instead of hostPort; empty = none
+    private String targets;
+    // Client-side load balancing policy; null is treated as AUTO
+    private LoadBalancingPolicy loadBalancingPolicy;
 
     public GrpcRequestConfig() {}
 
@@ -128,6 +138,14 @@ public class GrpcRequestConfig {
         return maxInboundMetadataSize;
     }
 
+    public ResponseMode getResponseMode() {
+        return responseMode == null ? ResponseMode.FULL : responseMode;
+    }
+
+    public LoadBalancingPolicy getLoadBalancingPolicy() {
+        return loadBalancingPolicy == null ? LoadBalancingPolicy.AUTO : loadBalancingPolicy;
+    }
+
     @Override
     public String toString() {
         return "GrpcRequestConfig{"
@@ -164,6 +182,18 @@ public class GrpcRequestConfig {
                 + (libContentZipBase64 == null ? "null" : "<base64 zip>")
                 + ", awaitTerminationTimeout="
                 + awaitTerminationTimeout
+                + ", channelsPerTarget="
+                + channelsPerTarget
+                + ", responseMode="
+                + responseMode
+                + ", serviceConfig='"
+                + serviceConfig
+                + '\''
+                + ", targets='"
+                + targets
+                + '\''
+                + ", loadBalancingPolicy="
+                + loadBalancingPolicy
                 + '}';
     }
 }
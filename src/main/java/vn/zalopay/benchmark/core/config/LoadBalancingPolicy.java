@@ -0,0 +1,33 @@
+package vn.zalopay.benchmark.core.config;
+
+import java.util.Locale;
+
+/** Client-side load balancing policy of the channels. */
+public enum LoadBalancingPolicy {
+    /** {@code pick_first} for a single host, {@code round_robin} for backend targets. */
+    AUTO,
+    /** Send every call to the first backend which connects. */
+    PICK_FIRST,
+    /** Spread calls over every ready backend in turn. */
+    ROUND_ROBIN;
+
+    /** Returns the name of the policy in the gRPC load balancer registry. */
+    public String policyName(boolean multipleBackends) {
+        if (this == AUTO) {
+            return multipleBackends ? "round_robin" : "pick_first";
+        }
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /** Parses a saved sampler value, falling back to {@link #AUTO} for blank or unknown values. */
+    public static LoadBalancingPolicy fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return AUTO;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return AUTO;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package vn.zalopay.benchmark.core.config;
+
+import java.util.Locale;
+
+/** Controls how much of each gRPC response is kept for the sample result. */
+public enum ResponseMode {
+    /** Render every response message as JSON and keep it as the response body. */
+    FULL,
+    /** Discard response bodies and only record the wire size in bytes and the status code. */
+    SIZE_ONLY,
+    /**
+     * Keep the decoded response messages and render them as JSON only when the response body of
+     * the sample result is read.
+     */
+    LAZY;
+
+    /** Parses a saved sampler value, falling back to {@link #FULL} for blank or unknown values. */
+    public static ResponseMode fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return FULL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return FULL;
+        }
+    }
+}
@@ -12,7 +12,10 @@ import java.net.InetSocketAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import vn.zalopay.benchmark.core.config.ChannelOptions;
 import vn.zalopay.benchmark.core.config.GrpcSecurityConfig;
+import vn.zalopay.benchmark.core.config.LoadBalancingPolicy;
+import vn.zalopay.benchmark.core.metrics.RpcMetrics;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -26,6 +29,7 @@ import java.util.Map;
 /** Knows how to construct grpc channels using the Credentials API. */
 public class ChannelFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(ChannelFactory.class);
+    private static final SharedChannelPool SHARED_CHANNEL_POOL = new SharedChannelPool();
 
     public static ChannelFactory create() {
         return new ChannelFactory();
@@ -39,30 +43,142 @@ public class ChannelFactory {
             Map<String, String> metadataHash,
             int maxInboundMessageSize,
             int maxInboundMetadataSize) {
-        ManagedChannelBuilder<?> builder = createChannelBuilder(endpoint, security);
-        // Prefer pick_first and keepalive to drive connection establishment for probes and reduce
-        // transient READY delays. These options are safe for production as well.
-        try {
-            if (builder instanceof io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder) {
-                io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder nb =
-                        (io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder) builder;
-                nb.defaultLoadBalancingPolicy("pick_first")
-                        .keepAliveWithoutCalls(true)
+        return createChannel(
+                endpoint,
+                security,
+                metadataHash,
+                ChannelOptions.builder()
+                        .maxInboundMessageSize(maxInboundMessageSize)
+                        .maxInboundMetadataSize(maxInboundMetadataSize)
+                        .build());
+    }
+
+    /**
+     * Creates a channel with the given options. A service config (inline JSON or a JSON file, see
+     * {@link ServiceConfigs}) is applied with retries enabled, so its retry and hedging policies
+     * are run by the channel instead of the sampler. Backend targets (see {@link ChannelTargets})
+     * replace the endpoint, which then only names the channel, and calls are balanced over them.
+     */
+    public ManagedChannel createChannel(
+            HostAndPort endpoint,
+            GrpcSecurityConfig security,
+            Map<String, String> metadataHash,
+            ChannelOptions options) {
+        ManagedChannelBuilder<?> builder = configureChannelBuilder(endpoint, security, options);
+        builder.intercept(metadataInterceptor(metadataHash));
+        ManagedChannel channel = builder.build();
+        RpcMetrics.get().watchChannel(channel);
+        return channel;
+    }
+
+    /**
+     * Returns a channel from the process-wide pool shared by all threads using the same target,
+     * security config and message-size limits. Up to {@code channelsPerTarget} channels are opened
+     * per key and handed out round-robin. The channel carries no metadata; wrap it with {@link
+     * #withMetadata(Channel, Map)} and give it back with {@link #releaseSharedChannel} instead of
+     * shutting it down.
+     */
+    public ManagedChannel acquireSharedChannel(
+            HostAndPort endpoint,
+            GrpcSecurityConfig security,
+            int maxInboundMessageSize,
+            int maxInboundMetadataSize,
+            int channelsPerTarget) {
+        return acquireSharedChannel(
+                endpoint,
+                security,
+                ChannelOptions.builder()
+                        .maxInboundMessageSize(maxInboundMessageSize)
+                        .maxInboundMetadataSize(maxInboundMetadataSize)
+                        .build(),
+                channelsPerTarget);
+    }
+
+    /** Like {@link #acquireSharedChannel}, for channels with the given options. */
+    public ManagedChannel acquireSharedChannel(
+            HostAndPort endpoint,
+            GrpcSecurityConfig security,
+            ChannelOptions options,
+            int channelsPerTarget) {
+        SharedChannelPool.Key key =
+                new SharedChannelPool.Key(endpoint.toString(), security, options);
+        return SHARED_CHANNEL_POOL.acquire(
+                key,
+                channelsPerTarget,
+                () -> {
+                    ManagedChannel channel =
+                            configureChannelBuilder(endpoint, security, options).build();
+                    RpcMetrics.get().watchChannel(channel);
+                    return channel;
+                });
+    }
+
+    /** Drops one reference to a channel obtained from {@link #acquireSharedChannel}. */
+    public void releaseSharedChannel(ManagedChannel channel) {
+        SHARED_CHANNEL_POOL.release(channel);
+    }
+
+    /** Closes every shared channel; called once at test end. */
+    public static void shutdownSharedChannels(long awaitTerminationMillis) {
+        SHARED_CHANNEL_POOL.shutdownAll(awaitTerminationMillis);
+    }
+
+    /**
+     * Closes the event-loop group and executor shared by the channels (see {@link EventLoops});
+     * called once at test end, after every channel was shut down.
+     */
+    public static void shutdownEventLoops() {
+        EventLoops.shutdown();
+    }
+
+    /** Decorates a channel so that every call carries the supplied (mutable) metadata. */
+    public Channel withMetadata(Channel channel, Map<String, String> metadataHash) {
+        return ClientInterceptors.intercept(channel, metadataInterceptor(metadataHash));
+    }
+
+    private ManagedChannelBuilder<?> configureChannelBuilder(
+            HostAndPort endpoint, GrpcSecurityConfig security, ChannelOptions options) {
+        String targets = options.getTargets();
+        boolean balanced = ChannelTargets.isSet(targets);
+        NettyChannelBuilder builder = createChannelBuilder(endpoint, security, targets);
+        EventLoops.apply(builder);
+        LoadBalancingPolicy policy =
+                options.getLoadBalancingPolicy() == null
+                        ? LoadBalancingPolicy.AUTO
+                        : options.getLoadBalancingPolicy();
+        // A single host is a direct address, which has one backend and forbids a policy
+        if (balanced) {
+            builder.defaultLoadBalancingPolicy(policy.policyName(true));
+            // Keepalive drives connection establishment for probes and reduces transient READY
+            // delays. These options are safe for production as well.
+            try {
+                builder.keepAliveWithoutCalls(true)
                         .keepAliveTime(30, java.util.concurrent.TimeUnit.SECONDS)
                         .keepAliveTimeout(10, java.util.concurrent.TimeUnit.SECONDS)
                         .idleTimeout(5, java.util.concurrent.TimeUnit.MINUTES);
+            } catch (Throwable ignore) {
+                // Non-fatal if options are unavailable in shaded environment
             }
-        } catch (Throwable ignore) {
-            // Non-fatal if options are unavailable in shaded environment
         }
-        builder.maxInboundMessageSize(maxInboundMessageSize);
-        builder.maxInboundMetadataSize(maxInboundMetadataSize);
-        builder.intercept(metadataInterceptor(metadataHash));
-        return builder.build();
+        builder.maxInboundMessageSize(options.getMaxInboundMessageSize());
+        builder.maxInboundMetadataSize(options.getMaxInboundMetadataSize());
+        if (ServiceConfigs.isSet(options.getServiceConfig())) {
+            builder.defaultServiceConfig(ServiceConfigs.parse(options.getServiceConfig()))
+                    .enableRetry();
+        }
+        return builder;
     }
 
-    private ManagedChannelBuilder<?> createChannelBuilder(
-            HostAndPort endpoint, GrpcSecurityConfig security) {
+    private NettyChannelBuilder createChannelBuilder(
+            HostAndPort endpoint, GrpcSecurityConfig security, String targets) {
+        if (ChannelTargets.isSet(targets)) {
+            StaticNameResolverProvider.register();
+            ChannelCredentials creds =
+                    security == null || !security.isTls()
+                            ? InsecureChannelCredentials.create()
+                            : buildTlsCredentials(security);
+            return NettyChannelBuilder.forTarget(ChannelTargets.channelTarget(targets), creds);
+        }
         InetSocketAddress addr = new InetSocketAddress(endpoint.getHost(), endpoint.getPort());
         if (security == null || !security.isTls()) {
             return NettyChannelBuilder.forAddress(addr, InsecureChannelCredentials.create());
@@ -0,0 +1,95 @@
+package vn.zalopay.benchmark.core.grpc;
+
+import com.google.common.net.HostAndPort;
+
+import vn.zalopay.benchmark.exception.GrpcPluginException;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backend targets of a load-balanced channel, given either as a list of {@code host:port}
+ * separated by commas or whitespace, or as a target URI understood by a registered name resolver
+ * (e.g. {@code dns:///service.local:8080}).
+ *
+ * <p>A list is resolved by the {@link StaticNameResolverProvider}: it is encoded into a target of
+ * its own scheme, so every listed backend becomes one address of the channel.
+ */
+public final class ChannelTargets {
+    private static final String CHARSET = "UTF-8";
+
+    private ChannelTargets() {}
+
+    public static boolean isSet(String targets) {
+        return targets != null && !targets.trim().isEmpty();
+    }
+
+    /** Returns whether the targets are a target URI rather than a list of backends. */
+    public static boolean isUri(String targets) {
+        return targets.contains("://");
+    }
+
+    /** Returns the backends of a list of targets, in order. */
+    public static List<HostAndPort> parse(String targets) {
+        List<HostAndPort> backends = new ArrayList<>();
+        for (String target : targets.trim().split("[,\\s]+")) {
+            if (target.isEmpty()) {
+                continue;
+            }
+            try {
+                backends.add(HostAndPort.fromString(target).requireBracketsForIPv6());
+            } catch (IllegalArgumentException e) {
+                throw new GrpcPluginException("Invalid backend target: " + target, e);
+            }
+            if (!backends.get(backends.size() - 1).hasPort()) {
+                throw new GrpcPluginException("Backend target has no port: " + target, null);
+            }
+        }
+        if (backends.isEmpty()) {
+            throw new GrpcPluginException("No backend targets in: " + targets, null);
+        }
+        return backends;
+    }
+
+    /**
+     * Returns the host and port standing for the targets in logs and as the channel authority: the
+     * first backend of a list, or the name a target URI resolves.
+     */
+    public static String authority(String targets) {
+        String trimmed = targets.trim();
+        if (!isUri(trimmed)) {
+            return parse(trimmed).get(0).toString();
+        }
+        URI uri = URI.create(trimmed);
+        String path = uri.getPath();
+        return path != null && path.length() > 1 ? path.substring(1) : uri.getAuthority();
+    }
+
+    /** Returns the target to build the channel for. */
+    static String channelTarget(String targets) {
+        String trimmed = targets.trim();
+        if (isUri(trimmed)) {
+            return trimmed;
+        }
+        parse(trimmed);
+        try {
+            return StaticNameResolverProvider.SCHEME + ":///" + URLEncoder.encode(trimmed, CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Decodes the list of targets from the path of a {@link #channelTarget} URI. */
+    static String fromChannelTarget(URI uri) {
+        String path = uri.getRawPath();
+        try {
+            return URLDecoder.decode(path.startsWith("/") ? path.substring(1) : path, CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
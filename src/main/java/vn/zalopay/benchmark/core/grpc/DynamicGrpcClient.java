@@ -1,106 +1,154 @@
 package vn.zalopay.benchmark.core.grpc;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.ByteString;
 import com.google.protobuf.Descriptors.MethodDescriptor;
 import com.google.protobuf.DynamicMessage;
 
 import io.grpc.CallOptions;
-import io.grpc.ManagedChannel;
+import io.grpc.Channel;
 import io.grpc.MethodDescriptor.MethodType;
 import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
 
 import vn.zalopay.benchmark.core.channel.ComponentObserver;
 import vn.zalopay.benchmark.core.channel.DoneObserver;
+import vn.zalopay.benchmark.core.channel.FlowControlledSender;
 
+/**
+ * Invokes a method resolved from the proto descriptors. Requests are passed already serialized
+ * (see {@link #serialize(ImmutableList)}) so a payload reused across calls is encoded only once.
+ * Streaming requests are written only while the stream is ready (see {@link
+ * FlowControlledSender}).
+ */
 public class DynamicGrpcClient {
+    private static final ByteStringMarshaller REQUEST_MARSHALLER = new ByteStringMarshaller();
+    // Keyed by descriptor identity and weakly held, so entries go away with the compiled protos.
+    private static final LoadingCache<
+                    MethodDescriptor, io.grpc.MethodDescriptor<ByteString, DynamicMessage>>
+            GRPC_METHOD_DESCRIPTORS =
+                    CacheBuilder.newBuilder()
+                            .weakKeys()
+                            .build(CacheLoader.from(DynamicGrpcClient::createGrpcMethodDescriptor));
+
     private final MethodDescriptor protoMethodDescriptor;
-    private final ManagedChannel channel;
+    private final io.grpc.MethodDescriptor<ByteString, DynamicMessage> grpcMethodDescriptor;
+    private final Channel channel;
 
-    public static DynamicGrpcClient create(MethodDescriptor protoMethod, ManagedChannel channel) {
+    public static DynamicGrpcClient create(MethodDescriptor protoMethod, Channel channel) {
         return new DynamicGrpcClient(protoMethod, channel);
     }
 
     @VisibleForTesting
-    DynamicGrpcClient(MethodDescriptor protoMethodDescriptor, ManagedChannel channel) {
+    DynamicGrpcClient(MethodDescriptor protoMethodDescriptor, Channel channel) {
         this.protoMethodDescriptor = protoMethodDescriptor;
+        this.grpcMethodDescriptor = GRPC_METHOD_DESCRIPTORS.getUnchecked(protoMethodDescriptor);
         this.channel = channel;
     }
 
+    /** Serializes request messages once, for reuse by any number of calls. */
+    public static ImmutableList<ByteString> serialize(ImmutableList<DynamicMessage> messages) {
+        ImmutableList.Builder<ByteString> result = ImmutableList.builder();
+        messages.forEach(message -> result.add(message.toByteString()));
+        return result.build();
+    }
+
     public ListenableFuture<Void> blockingUnaryCall(
-            ImmutableList<DynamicMessage> requests,
+            ImmutableList<ByteString> requests,
             StreamObserver<DynamicMessage> responseObserver,
             CallOptions callOptions) {
         DoneObserver<DynamicMessage> doneObserver = new DoneObserver<>();
         ClientCalls.asyncUnaryCall(
-                this.channel.newCall(createGrpcMethodDescriptor(), callOptions),
+                this.channel.newCall(grpcMethodDescriptor, callOptions),
                 requests.get(0),
                 ComponentObserver.of(responseObserver, doneObserver));
         return doneObserver.getCompletionFuture();
     }
 
     public ListenableFuture<Void> callServerStreaming(
-            ImmutableList<DynamicMessage> requests,
+            ImmutableList<ByteString> requests,
             StreamObserver<DynamicMessage> responseObserver,
             CallOptions callOptions) {
         DoneObserver<DynamicMessage> doneObserver = new DoneObserver<>();
         ClientCalls.asyncServerStreamingCall(
-                this.channel.newCall(createGrpcMethodDescriptor(), callOptions),
+                this.channel.newCall(grpcMethodDescriptor, callOptions),
                 requests.get(0),
                 ComponentObserver.of(responseObserver, doneObserver));
         return doneObserver.getCompletionFuture();
     }
 
     public ListenableFuture<Void> callClientStreaming(
-            ImmutableList<DynamicMessage> requests,
+            ImmutableList<ByteString> requests,
             StreamObserver<DynamicMessage> responseObserver,
             CallOptions callOptions) {
         DoneObserver<DynamicMessage> doneObserver = new DoneObserver<>();
-        StreamObserver<DynamicMessage> requestObserver =
-                ClientCalls.asyncClientStreamingCall(
-                        this.channel.newCall(createGrpcMethodDescriptor(), callOptions),
-                        ComponentObserver.of(responseObserver, doneObserver));
-        requests.forEach(requestObserver::onNext);
-        requestObserver.onCompleted();
+        ClientCalls.asyncClientStreamingCall(
+                this.channel.newCall(grpcMethodDescriptor, callOptions),
+                new FlowControlledSender<>(
+                        requests, ComponentObserver.of(responseObserver, doneObserver)));
         return doneObserver.getCompletionFuture();
     }
 
     public ListenableFuture<Void> callBidiStreaming(
-            ImmutableList<DynamicMessage> requests,
+            ImmutableList<ByteString> requests,
             StreamObserver<DynamicMessage> responseObserver,
             CallOptions callOptions) {
         DoneObserver<DynamicMessage> doneObserver = new DoneObserver<>();
-        StreamObserver<DynamicMessage> requestObserver =
-                ClientCalls.asyncBidiStreamingCall(
-                        this.channel.newCall(createGrpcMethodDescriptor(), callOptions),
-                        ComponentObserver.of(responseObserver, doneObserver));
-        requests.forEach(requestObserver::onNext);
-        requestObserver.onCompleted();
+        ClientCalls.asyncBidiStreamingCall(
+                this.channel.newCall(grpcMethodDescriptor, callOptions),
+                new FlowControlledSender<>(
+                        requests, ComponentObserver.of(responseObserver, doneObserver)));
         return doneObserver.getCompletionFuture();
     }
 
-    private io.grpc.MethodDescriptor<DynamicMessage, DynamicMessage> createGrpcMethodDescriptor() {
-        return io.grpc.MethodDescriptor.<DynamicMessage, DynamicMessage>newBuilder()
-                .setFullMethodName(getFullMethodName())
-                .setType(getMethodType())
+    /**
+     * Opens a bidi stream and returns its request side, leaving it open for messages to be sent
+     * over any period of time. The response observer sees every response and the stream status.
+     */
+    public StreamObserver<ByteString> openBidiStream(
+            ClientResponseObserver<ByteString, DynamicMessage> responseObserver,
+            CallOptions callOptions) {
+        return ClientCalls.asyncBidiStreamingCall(
+                this.channel.newCall(grpcMethodDescriptor, callOptions), responseObserver);
+    }
+
+    /**
+     * Opens a client stream and returns its request side. The response observer can use {@code
+     * beforeStart} to follow the flow control of the stream while messages are sent.
+     */
+    public StreamObserver<ByteString> openClientStream(
+            ClientResponseObserver<ByteString, DynamicMessage> responseObserver,
+            CallOptions callOptions) {
+        return ClientCalls.asyncClientStreamingCall(
+                this.channel.newCall(grpcMethodDescriptor, callOptions), responseObserver);
+    }
+
+    private static io.grpc.MethodDescriptor<ByteString, DynamicMessage>
+            createGrpcMethodDescriptor(MethodDescriptor protoMethodDescriptor) {
+        return io.grpc.MethodDescriptor.<ByteString, DynamicMessage>newBuilder()
+                .setFullMethodName(getFullMethodName(protoMethodDescriptor))
+                .setType(getMethodType(protoMethodDescriptor))
                 .setResponseMarshaller(
                         new DynamicMessageMarshaller(protoMethodDescriptor.getOutputType()))
-                .setRequestMarshaller(
-                        new DynamicMessageMarshaller(protoMethodDescriptor.getInputType()))
+                .setRequestMarshaller(REQUEST_MARSHALLER)
                 .build();
     }
 
-    private String getFullMethodName() {
+    private static String getFullMethodName(MethodDescriptor protoMethodDescriptor) {
         String serviceName = protoMethodDescriptor.getService().getFullName();
         String methodName = protoMethodDescriptor.getName();
         return io.grpc.MethodDescriptor.generateFullMethodName(serviceName, methodName);
     }
 
-    private MethodType getMethodType() {
-        boolean clientStreaming = protoMethodDescriptor.toProto().getClientStreaming();
-        boolean serverStreaming = protoMethodDescriptor.toProto().getServerStreaming();
+    private static MethodType getMethodType(MethodDescriptor protoMethodDescriptor) {
+        boolean clientStreaming = protoMethodDescriptor.isClientStreaming();
+        boolean serverStreaming = protoMethodDescriptor.isServerStreaming();
 
         if (!clientStreaming && !serverStreaming) {
             return MethodType.UNARY;
@@ -113,4 +161,9 @@ public class DynamicGrpcClient {
         }
         throw new IllegalArgumentException("Can't map to gRPC method type");
     }
+
+    @VisibleForTesting
+    io.grpc.MethodDescriptor<ByteString, DynamicMessage> getGrpcMethodDescriptor() {
+        return grpcMethodDescriptor;
+    }
 }
@@ -0,0 +1,126 @@
+package vn.zalopay.benchmark.core.grpc;
+
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport, event-loop group and channel executor shared by every channel of the plugin.
+ *
+ * <p>{@code grpc.request.transport} picks the socket transport: {@code epoll} (Linux, native
+ * library bundled with grpc-netty-shaded), {@code nio}, or {@code auto} (default), which lets gRPC
+ * pick epoll when it loads and NIO otherwise. {@code grpc.request.eventLoop.threads} sizes one
+ * event-loop group used by all channels (0, the default, keeps gRPC's shared group of two threads
+ * per core) and {@code grpc.request.executor.threads} one fixed pool which runs the call callbacks
+ * of all channels (0, the default, keeps gRPC's cached pool). With the defaults the channels are
+ * left as gRPC builds them. The group and pool are created by the first channel of a test and
+ * closed at test end.
+ */
+final class EventLoops {
+    static final String TRANSPORT_PROPERTY = "grpc.request.transport";
+    static final String EVENT_LOOP_THREADS_PROPERTY = "grpc.request.eventLoop.threads";
+    static final String EXECUTOR_THREADS_PROPERTY = "grpc.request.executor.threads";
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoops.class);
+
+    private static boolean configured;
+    private static boolean epoll;
+    private static EventLoopGroup eventLoopGroup;
+    private static ExecutorService executor;
+
+    private EventLoops() {}
+
+    /** Applies the shared transport, event-loop group and executor to {@code builder}. */
+    static synchronized void apply(NettyChannelBuilder builder) {
+        if (!configured) {
+            configure();
+        }
+        if (eventLoopGroup != null) {
+            builder.eventLoopGroup(eventLoopGroup)
+                    .channelType(epoll ? EpollSocketChannel.class : NioSocketChannel.class);
+        }
+        if (executor != null) {
+            builder.executor(executor);
+        }
+    }
+
+    /** Returns the shared event-loop group, null when channels use gRPC's default one. */
+    static synchronized EventLoopGroup eventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    /** Closes the shared group and executor; channels of the next test create new ones. */
+    static synchronized void shutdown() {
+        if (eventLoopGroup != null) {
+            eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+            eventLoopGroup = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        configured = false;
+    }
+
+    private static void configure() {
+        String transport =
+                JMeterUtils.getPropDefault(TRANSPORT_PROPERTY, "auto")
+                        .trim()
+                        .toLowerCase(Locale.ROOT);
+        int eventLoopThreads = JMeterUtils.getPropDefault(EVENT_LOOP_THREADS_PROPERTY, 0);
+        int executorThreads = JMeterUtils.getPropDefault(EXECUTOR_THREADS_PROPERTY, 0);
+        configured = true;
+
+        if (!"auto".equals(transport) || eventLoopThreads > 0) {
+            epoll = !"nio".equals(transport) && Epoll.isAvailable();
+            if ("epoll".equals(transport) && !epoll) {
+                LOGGER.warn(
+                        "[GRPC] epoll transport is not available, using NIO: {}",
+                        String.valueOf(Epoll.unavailabilityCause()));
+            }
+            DefaultThreadFactory threadFactory =
+                    new DefaultThreadFactory("grpc-request-eventloop", true);
+            // 0 threads lets netty use its default of two per core
+            eventLoopGroup =
+                    epoll
+                            ? new EpollEventLoopGroup(Math.max(0, eventLoopThreads), threadFactory)
+                            : new NioEventLoopGroup(Math.max(0, eventLoopThreads), threadFactory);
+        }
+        if (executorThreads > 0) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor =
+                    Executors.newFixedThreadPool(
+                            executorThreads,
+                            runnable -> {
+                                Thread thread =
+                                        new Thread(
+                                                runnable,
+                                                "grpc-request-executor-"
+                                                        + threadNumber.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+        }
+        if (eventLoopGroup != null || executor != null) {
+            LOGGER.info(
+                    "[GRPC] transport={} eventLoopThreads={} executorThreads={}",
+                    eventLoopGroup == null ? "default" : epoll ? "epoll" : "nio",
+                    eventLoopThreads,
+                    executorThreads);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package vn.zalopay.benchmark.core.grpc;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+
+import vn.zalopay.benchmark.exception.GrpcPluginException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a gRPC service config (retry and hedging policies, retry throttling, per-method timeouts)
+ * given either inline as a JSON object or as the path of a JSON file, into the form expected by
+ * {@link io.grpc.ManagedChannelBuilder#defaultServiceConfig(Map)}: nested maps and lists whose
+ * numbers are all doubles.
+ */
+final class ServiceConfigs {
+
+    private ServiceConfigs() {}
+
+    static boolean isSet(String serviceConfig) {
+        return serviceConfig != null && !serviceConfig.trim().isEmpty();
+    }
+
+    static Map<String, ?> parse(String serviceConfig) {
+        String json = serviceConfig.trim();
+        if (!json.startsWith("{")) {
+            try {
+                json = new String(Files.readAllBytes(Paths.get(json)), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new GrpcPluginException("Unable to read service config: " + json, e);
+            }
+        }
+        Object parsed;
+        try {
+            parsed = JSON.parse(json);
+        } catch (JSONException e) {
+            throw new GrpcPluginException("Service config is not valid JSON: " + e.getMessage(), e);
+        }
+        if (!(parsed instanceof Map)) {
+            throw new GrpcPluginException("Service config must be a JSON object", null);
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, ?> config = (Map<String, ?>) normalize(parsed);
+        return config;
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            ((Map<?, ?>) value)
+                    .forEach((key, item) -> map.put(String.valueOf(key), normalize(item)));
+            return map;
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                list.add(normalize(item));
+            }
+            return list;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+}
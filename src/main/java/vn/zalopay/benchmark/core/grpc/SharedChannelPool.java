@@ -0,0 +1,116 @@
+package vn.zalopay.benchmark.core.grpc;
+
+import io.grpc.ManagedChannel;
+
+import lombok.Value;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import vn.zalopay.benchmark.core.config.ChannelOptions;
+import vn.zalopay.benchmark.core.config.GrpcSecurityConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Reference-counted pool of channels shared by all sampler threads talking to the same target.
+ *
+ * <p>Each key owns a fixed number of channel slots which are created lazily and handed out in
+ * round-robin order, so threads are spread evenly across the connections. Releasing a channel only
+ * drops its reference count; the channels themselves stay open until {@link #shutdownAll(long)} is
+ * called at test end.
+ */
+final class SharedChannelPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedChannelPool.class);
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+    private final Map<ManagedChannel, Entry> owners = new IdentityHashMap<>();
+
+    synchronized ManagedChannel acquire(
+            Key key, int channelsPerTarget, Supplier<ManagedChannel> channelSupplier) {
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry(Math.max(1, channelsPerTarget)));
+        int slot = entry.nextSlot++ % entry.channels.length;
+        ManagedChannel channel = entry.channels[slot];
+        if (channel == null || channel.isShutdown()) {
+            if (channel != null) {
+                owners.remove(channel);
+            }
+            channel = channelSupplier.get();
+            entry.channels[slot] = channel;
+            owners.put(channel, entry);
+            LOGGER.info(
+                    "Created shared channel {}/{} for {}",
+                    slot + 1,
+                    entry.channels.length,
+                    key.getTarget());
+        }
+        entry.references++;
+        return channel;
+    }
+
+    synchronized void release(ManagedChannel channel) {
+        Entry entry = owners.get(channel);
+        if (entry != null && entry.references > 0) {
+            entry.references--;
+        }
+    }
+
+    synchronized int references(Key key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.references;
+    }
+
+    void shutdownAll(long awaitTerminationMillis) {
+        List<ManagedChannel> channels;
+        synchronized (this) {
+            channels = new ArrayList<>(owners.keySet());
+            entries.forEach(
+                    (key, entry) -> {
+                        if (entry.references > 0) {
+                            LOGGER.warn(
+                                    "Closing shared channels for {} with {} active references",
+                                    key.getTarget(),
+                                    entry.references);
+                        }
+                    });
+            entries.clear();
+            owners.clear();
+        }
+        channels.forEach(ManagedChannel::shutdown);
+        for (ManagedChannel channel : channels) {
+            try {
+                channel.awaitTermination(awaitTerminationMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Identifies channels which can be shared: same target, security and channel options (size
+     * limits, service config, backends and load balancing).
+     */
+    @Value
+    static class Key {
+        String target;
+        GrpcSecurityConfig security;
+        ChannelOptions options;
+    }
+
+    private static final class Entry {
+        private final ManagedChannel[] channels;
+        private int nextSlot;
+        private int references;
+
+        private Entry(int size) {
+            this.channels = new ManagedChannel[size];
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package vn.zalopay.benchmark.core.grpc;
+
+import com.google.common.net.HostAndPort;
+
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Status;
+import io.grpc.StatusOr;
+import io.grpc.SynchronizationContext;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Resolves a fixed list of backends, encoded by {@link ChannelTargets#channelTarget}, into one
+ * address group per backend, so the load balancing policy of the channel sees every backend as a
+ * separate subchannel. Host names are looked up again whenever the channel asks for a refresh.
+ * Lookups block, so they run on the offload executor of the channel and their result is reported
+ * from its synchronization context, like gRPC's DNS resolver does.
+ */
+final class StaticNameResolverProvider extends NameResolverProvider {
+    static final String SCHEME = "grpc-request-static";
+
+    private static volatile boolean registered;
+
+    /** Adds the provider to the default registry once, before the first channel uses it. */
+    static void register() {
+        if (!registered) {
+            synchronized (StaticNameResolverProvider.class) {
+                if (!registered) {
+                    NameResolverRegistry.getDefaultRegistry()
+                            .register(new StaticNameResolverProvider());
+                    registered = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+        if (!SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+        Executor offloadExecutor = args.getOffloadExecutor();
+        return new StaticNameResolver(
+                ChannelTargets.parse(ChannelTargets.fromChannelTarget(targetUri)),
+                args.getSynchronizationContext(),
+                // Channels always pass one; a resolver created outside of a channel may not
+                offloadExecutor == null ? ForkJoinPool.commonPool() : offloadExecutor);
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    protected boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    protected int priority() {
+        return 5;
+    }
+
+    private static final class StaticNameResolver extends NameResolver {
+        private final List<HostAndPort> backends;
+        private final SynchronizationContext syncContext;
+        private final Executor offloadExecutor;
+        // Only used from the synchronization context
+        private Listener2 listener;
+        private boolean resolving;
+        private boolean shutdown;
+
+        private StaticNameResolver(
+                List<HostAndPort> backends,
+                SynchronizationContext syncContext,
+                Executor offloadExecutor) {
+            this.backends = backends;
+            this.syncContext = syncContext;
+            this.offloadExecutor = offloadExecutor;
+        }
+
+        @Override
+        public String getServiceAuthority() {
+            return backends.get(0).toString();
+        }
+
+        @Override
+        public void start(Listener2 listener) {
+            this.listener = listener;
+            resolve();
+        }
+
+        @Override
+        public void refresh() {
+            resolve();
+        }
+
+        private void resolve() {
+            if (resolving || shutdown) {
+                return;
+            }
+            resolving = true;
+            offloadExecutor.execute(
+                    () -> {
+                        StatusOr<List<EquivalentAddressGroup>> addresses = lookUp();
+                        syncContext.execute(
+                                () -> {
+                                    resolving = false;
+                                    if (!shutdown) {
+                                        listener.onResult2(
+                                                ResolutionResult.newBuilder()
+                                                        .setAddressesOrError(addresses)
+                                                        .build());
+                                    }
+                                });
+                    });
+        }
+
+        private StatusOr<List<EquivalentAddressGroup>> lookUp() {
+            List<EquivalentAddressGroup> groups = new ArrayList<>(backends.size());
+            for (HostAndPort backend : backends) {
+                InetSocketAddress address =
+                        new InetSocketAddress(backend.getHost(), backend.getPort());
+                if (!address.isUnresolved()) {
+                    groups.add(new EquivalentAddressGroup(address));
+                }
+            }
+            if (groups.isEmpty()) {
+                return StatusOr.fromStatus(
+                        Status.UNAVAILABLE.withDescription("Unable to resolve " + backends));
+            }
+            return StatusOr.fromValue(groups);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package vn.zalopay.benchmark.core.message;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.util.JsonFormat;
+
+import vn.zalopay.benchmark.exception.GrpcPluginException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Serialized request messages fed to a client stream. Messages are parsed once, so streaming them
+ * costs no JSON work, and are handed out in a cycle when a call sends more messages than there
+ * are in the source.
+ */
+public final class MessageSource {
+    private final ImmutableList<ByteString> messages;
+
+    private MessageSource(ImmutableList<ByteString> messages) {
+        this.messages = messages;
+    }
+
+    /** A source which repeats the given request. */
+    public static MessageSource repeating(ByteString message) {
+        return new MessageSource(ImmutableList.of(message));
+    }
+
+    /** A source with one message per non-blank line of a JSON-lines file. */
+    public static MessageSource fromJsonLines(
+            String path, Descriptors.Descriptor descriptor, JsonFormat.TypeRegistry registry) {
+        ImmutableList.Builder<ByteString> messages = ImmutableList.builder();
+        try (BufferedReader reader =
+                Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    messages.add(
+                            Reader.create(descriptor, line, registry).read().get(0).toByteString());
+                }
+            }
+        } catch (IOException e) {
+            throw new GrpcPluginException("Unable to read messages from file: " + path, e);
+        }
+        ImmutableList<ByteString> result = messages.build();
+        if (result.isEmpty()) {
+            throw new GrpcPluginException("No message in file: " + path, null);
+        }
+        return new MessageSource(result);
+    }
+
+    /** Returns the number of distinct messages, which is one pass over the source. */
+    public int size() {
+        return messages.size();
+    }
+
+    /** Returns the message at {@code index}, wrapping around the end of the source. */
+    public ByteString get(int index) {
+        return messages.get(index % messages.size());
+    }
+}
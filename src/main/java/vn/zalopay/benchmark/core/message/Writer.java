@@ -9,6 +9,8 @@ import io.grpc.stub.StreamObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import vn.zalopay.benchmark.core.config.ResponseMode;
+import vn.zalopay.benchmark.core.metrics.CallStats;
 import vn.zalopay.benchmark.core.specification.GrpcResponse;
 
 public class Writer<T extends Message> implements StreamObserver<T> {
@@ -17,26 +19,48 @@ public class Writer<T extends Message> implements StreamObserver<T> {
 
     private final JsonFormat.Printer jsonPrinter;
     private final GrpcResponse grpcResponse;
+    private final ResponseMode responseMode;
 
     Writer(JsonFormat.Printer jsonPrinter, GrpcResponse grpcResponse) {
+        this(jsonPrinter, grpcResponse, ResponseMode.FULL);
+    }
+
+    Writer(JsonFormat.Printer jsonPrinter, GrpcResponse grpcResponse, ResponseMode responseMode) {
         this.jsonPrinter = jsonPrinter.preservingProtoFieldNames().includingDefaultValueFields();
         this.grpcResponse = grpcResponse;
+        this.responseMode = responseMode;
     }
 
     /** Creates a new Writer which writes the messages it sees to the supplied Output. */
     public static <T extends Message> Writer<T> create(
             GrpcResponse grpcResponse, JsonFormat.TypeRegistry registry) {
-        return new Writer<>(JsonFormat.printer().usingTypeRegistry(registry), grpcResponse);
+        return create(grpcResponse, registry, ResponseMode.FULL);
+    }
+
+    /**
+     * Creates a new Writer for the given response mode. In {@link ResponseMode#SIZE_ONLY} mode the
+     * messages are never printed, only their serialized size is added to the Output. In {@link
+     * ResponseMode#LAZY} mode they are printed when the Output is first read.
+     */
+    public static <T extends Message> Writer<T> create(
+            GrpcResponse grpcResponse,
+            JsonFormat.TypeRegistry registry,
+            ResponseMode responseMode) {
+        return new Writer<>(
+                JsonFormat.printer().usingTypeRegistry(registry), grpcResponse, responseMode);
     }
 
     @Override
     public void onCompleted() {
-        try {
-            String msg = grpcResponse.getGrpcMessageString();
-            int size = msg == null ? 0 : msg.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
-            LOGGER.info("[GRPC] Stream completed. success={} sizeBytes={}", grpcResponse.isSuccess(), size);
-        } catch (Exception e) {
-            LOGGER.debug("[GRPC] Stream completed (size calc failed): {}", e.getMessage());
+        if (grpcResponse.getThrowable() == null) {
+            // A stream may complete without any message, which is still a successful call.
+            grpcResponse.setSuccess(true);
+        }
+        if (CallStats.isCallLoggingEnabled()) {
+            LOGGER.info(
+                    "[GRPC] Stream completed. success={} sizeBytes={}",
+                    grpcResponse.isSuccess(),
+                    grpcResponse.getResponseBytes());
         }
     }
 
@@ -44,20 +68,59 @@ public class Writer<T extends Message> implements StreamObserver<T> {
     public void onError(Throwable throwable) {
         grpcResponse.setSuccess(false);
         grpcResponse.setThrowable(throwable);
-        LOGGER.error("[GRPC] Stream error: {}", throwable.toString());
+        // The caller counts the failure per code and logs it in full only while ErrorStats allows
+        if (CallStats.isCallLoggingEnabled()) {
+            LOGGER.info("[GRPC] Stream error code={}", grpcResponse.getStatusCode());
+        } else {
+            LOGGER.debug("[GRPC] Stream error", throwable);
+        }
     }
 
     @Override
     public void onNext(T message) {
-        try {
-            grpcResponse.setSuccess(true);
-            grpcResponse.storeGrpcMessage(jsonPrinter.print(message));
-            String s = grpcResponse.getGrpcMessageString();
-            int size = s == null ? 0 : s.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+        grpcResponse.getTimings().messageDelivered();
+        grpcResponse.setSuccess(true);
+        int size = message.getSerializedSize();
+        grpcResponse.recordMessage(size);
+        CallStats.get().messageReceived(size);
+        if (responseMode == ResponseMode.FULL) {
+            long renderStart = System.nanoTime();
+            grpcResponse.storeGrpcMessage(print(jsonPrinter, message));
+            grpcResponse.getTimings().addRenderNanos(System.nanoTime() - renderStart);
+        } else if (responseMode == ResponseMode.LAZY) {
+            grpcResponse.storeGrpcMessage(new LazyJsonMessage(jsonPrinter, message));
+        }
+        if (CallStats.isCallLoggingEnabled()) {
             LOGGER.info("[GRPC] Received message sizeBytes={}", size);
+        }
+    }
+
+    private static String print(JsonFormat.Printer jsonPrinter, Message message) {
+        try {
+            return jsonPrinter.print(message);
         } catch (InvalidProtocolBufferException e) {
             LOGGER.warn(e.getMessage());
-            grpcResponse.storeGrpcMessage(message.toString());
+            return message.toString();
+        }
+    }
+
+    /** A received message which is printed as JSON the first time its string form is needed. */
+    private static final class LazyJsonMessage {
+        private final JsonFormat.Printer jsonPrinter;
+        private final Message message;
+        private String json;
+
+        private LazyJsonMessage(JsonFormat.Printer jsonPrinter, Message message) {
+            this.jsonPrinter = jsonPrinter;
+            this.message = message;
+        }
+
+        @Override
+        public synchronized String toString() {
+            if (json == null) {
+                json = print(jsonPrinter, message);
+            }
+            return json;
         }
     }
 }
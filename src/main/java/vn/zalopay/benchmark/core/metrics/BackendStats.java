@@ -0,0 +1,87 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import lombok.Value;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, failures and latency per backend, the remote address which served each call, so that a
+ * hot or slow replica behind a load-balanced channel stands out. Logged at test end and served as
+ * part of the {@link RpcMetrics}.
+ */
+public final class BackendStats {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackendStats.class);
+    private static final BackendStats INSTANCE = new BackendStats();
+
+    private final ConcurrentMap<String, Counters> backends = new ConcurrentHashMap<>();
+
+    private BackendStats() {}
+
+    public static BackendStats get() {
+        return INSTANCE;
+    }
+
+    /** Records one call completed by {@code backend} in {@code nanos}. */
+    public void callCompleted(String backend, boolean success, long nanos) {
+        Counters counters = backends.computeIfAbsent(backend, key -> new Counters());
+        counters.calls.increment();
+        if (!success) {
+            counters.failures.increment();
+        }
+        counters.sumNanos.add(Math.max(0, nanos));
+    }
+
+    /** Returns the totals of every backend, sorted by backend. */
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> snapshot = new TreeMap<>();
+        backends.forEach(
+                (backend, counters) ->
+                        snapshot.put(
+                                backend,
+                                new Snapshot(
+                                        counters.calls.sum(),
+                                        counters.failures.sum(),
+                                        counters.sumNanos.sum())));
+        return snapshot;
+    }
+
+    /** Logs the totals of every backend and clears them for the next test. */
+    public void stop() {
+        snapshot()
+                .forEach(
+                        (backend, totals) ->
+                                LOGGER.info(
+                                        "[GRPC] backend={} calls={} failures={} meanMs={}",
+                                        backend,
+                                        totals.getCalls(),
+                                        totals.getFailures(),
+                                        totals.getCalls() == 0
+                                                ? 0
+                                                : TimeUnit.NANOSECONDS.toMillis(
+                                                        totals.getSumNanos()
+                                                                / totals.getCalls())));
+        backends.clear();
+    }
+
+    /** Totals of one backend. */
+    @Value
+    public static class Snapshot {
+        long calls;
+        long failures;
+        long sumNanos;
+    }
+
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+    }
+}
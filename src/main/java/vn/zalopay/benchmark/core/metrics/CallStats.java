@@ -0,0 +1,200 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import lombok.Value;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide call counters shared by every sampler thread.
+ *
+ * <p>Recording a call only bumps {@link LongAdder}s, so the request path never touches the log
+ * appender, and senders add the time they were held back by stream flow control. A daemon
+ * reporter logs one summary line with the activity of each interval ({@code
+ * grpc.request.stats.interval.seconds}, 0 disables it). Logging every call is opt-in through
+ * {@code grpc.request.log.calls}.
+ */
+public final class CallStats {
+    public static final String LOG_CALLS_PROPERTY = "grpc.request.log.calls";
+    public static final String STATS_INTERVAL_PROPERTY = "grpc.request.stats.interval.seconds";
+    private static final int DEFAULT_STATS_INTERVAL_SECONDS = 30;
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallStats.class);
+    private static final CallStats INSTANCE = new CallStats();
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder flowControlWaits = new LongAdder();
+    private final LongAdder flowControlBlockedNanos = new LongAdder();
+    private final LongAdder channelRebuilds = new LongAdder();
+
+    private volatile boolean callLoggingEnabled;
+    private volatile boolean configured;
+    private ScheduledExecutorService reporter;
+    private Snapshot lastReported = Snapshot.EMPTY;
+
+    private CallStats() {}
+
+    public static CallStats get() {
+        return INSTANCE;
+    }
+
+    /** Returns true when every call should be logged, as set by {@code grpc.request.log.calls}. */
+    public static boolean isCallLoggingEnabled() {
+        INSTANCE.ensureConfigured();
+        return INSTANCE.callLoggingEnabled;
+    }
+
+    public void callStarted() {
+        ensureConfigured();
+        started.increment();
+    }
+
+    public void callSucceeded() {
+        succeeded.increment();
+    }
+
+    public void callFailed() {
+        failed.increment();
+    }
+
+    public void messageReceived(int serializedSize) {
+        messages.increment();
+        bytes.add(serializedSize);
+    }
+
+    /**
+     * Records time a sender spent waiting for a stream to accept more messages. A large share
+     * means the load generator is held back by flow control (a slow reader or a small window)
+     * rather than by the server's processing time.
+     */
+    public void flowControlBlocked(long nanos) {
+        flowControlWaits.increment();
+        flowControlBlockedNanos.add(nanos);
+    }
+
+    /** Records a channel replaced because it was no longer usable (shut down or given back). */
+    public void channelRebuilt() {
+        channelRebuilds.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(
+                started.sum(),
+                succeeded.sum(),
+                failed.sum(),
+                messages.sum(),
+                bytes.sum(),
+                flowControlWaits.sum(),
+                flowControlBlockedNanos.sum(),
+                channelRebuilds.sum());
+    }
+
+    /** Logs the activity since the previous report, if there was any. */
+    public synchronized void report() {
+        Snapshot current = snapshot();
+        Snapshot delta = current.minus(lastReported);
+        lastReported = current;
+        if (delta.getStarted() == 0
+                && delta.getMessages() == 0
+                && delta.getFlowControlWaits() == 0
+                && delta.getChannelRebuilds() == 0) {
+            return;
+        }
+        LOGGER.info(
+                "[GRPC] stats started={} succeeded={} failed={} messages={} bytes={}"
+                        + " flowControlWaits={} flowControlBlockedMs={} channelRebuilds={}",
+                delta.getStarted(),
+                delta.getSucceeded(),
+                delta.getFailed(),
+                delta.getMessages(),
+                delta.getBytes(),
+                delta.getFlowControlWaits(),
+                TimeUnit.NANOSECONDS.toMillis(delta.getFlowControlBlockedNanos()),
+                delta.getChannelRebuilds());
+    }
+
+    /**
+     * Reports the remaining activity, stops the reporter and resets the counters, so the next test
+     * re-reads its configuration.
+     */
+    public synchronized void stop() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        report();
+        started.reset();
+        succeeded.reset();
+        failed.reset();
+        messages.reset();
+        bytes.reset();
+        flowControlWaits.reset();
+        flowControlBlockedNanos.reset();
+        channelRebuilds.reset();
+        lastReported = Snapshot.EMPTY;
+        configured = false;
+    }
+
+    private void ensureConfigured() {
+        if (!configured) {
+            configure();
+        }
+    }
+
+    private synchronized void configure() {
+        if (configured) {
+            return;
+        }
+        callLoggingEnabled = JMeterUtils.getPropDefault(LOG_CALLS_PROPERTY, false);
+        int intervalSeconds =
+                JMeterUtils.getPropDefault(STATS_INTERVAL_PROPERTY, DEFAULT_STATS_INTERVAL_SECONDS);
+        if (intervalSeconds > 0) {
+            reporter =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "grpc-request-stats");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            reporter.scheduleAtFixedRate(
+                    this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+        configured = true;
+    }
+
+    /** Totals of the counters at one point in time. */
+    @Value
+    public static class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0, 0);
+
+        long started;
+        long succeeded;
+        long failed;
+        long messages;
+        long bytes;
+        long flowControlWaits;
+        long flowControlBlockedNanos;
+        long channelRebuilds;
+
+        Snapshot minus(Snapshot other) {
+            return new Snapshot(
+                    started - other.started,
+                    succeeded - other.succeeded,
+                    failed - other.failed,
+                    messages - other.messages,
+                    bytes - other.bytes,
+                    flowControlWaits - other.flowControlWaits,
+                    flowControlBlockedNanos - other.flowControlBlockedNanos,
+                    channelRebuilds - other.channelRebuilds);
+        }
+    }
+}
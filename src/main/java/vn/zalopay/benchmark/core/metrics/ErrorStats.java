@@ -0,0 +1,117 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import io.grpc.Status;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Failed calls per status code, so that an outage does not turn every failure into kilobytes of
+ * strings.
+ *
+ * <p>Every failure bumps the {@link LongAdder} of its code. With {@code
+ * grpc.request.errors.detailed} set to N (default -1, every failure), only the first N failures of
+ * each code are logged and reported with their cause chain and stack trace; later ones carry the
+ * code and the description of the first failure of that code, shared by all of them. The counts
+ * are logged at test end.
+ */
+public final class ErrorStats {
+    public static final String DETAILED_ERRORS_PROPERTY = "grpc.request.errors.detailed";
+    private static final Status.Code[] CODES = Status.Code.values();
+    private static final Logger LOGGER = LoggerFactory.getLogger(ErrorStats.class);
+    private static final ErrorStats INSTANCE = new ErrorStats();
+
+    private final LongAdder[] failures = new LongAdder[CODES.length];
+    private final AtomicLongArray detailed = new AtomicLongArray(CODES.length);
+    private final AtomicReferenceArray<String> descriptions =
+            new AtomicReferenceArray<>(CODES.length);
+
+    private volatile boolean configured;
+    private long detailedPerCode;
+
+    private ErrorStats() {
+        for (int i = 0; i < failures.length; i++) {
+            failures[i] = new LongAdder();
+        }
+    }
+
+    public static ErrorStats get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Counts one failure with {@code status} and returns whether it is among the failures of its
+     * code which are reported in full.
+     */
+    public boolean failed(Status status) {
+        if (!configured) {
+            configure();
+        }
+        int index = status.getCode().ordinal();
+        failures[index].increment();
+        if (descriptions.get(index) == null) {
+            descriptions.compareAndSet(index, null, describe(status));
+        }
+        if (detailedPerCode < 0) {
+            return true;
+        }
+        // Only the first failures contend on the counter, later ones just read it.
+        return detailed.get(index) < detailedPerCode
+                && detailed.incrementAndGet(index) <= detailedPerCode;
+    }
+
+    /** Returns whether failures with {@code code} are still reported in full. */
+    public boolean isDetailed(Status.Code code) {
+        if (!configured) {
+            configure();
+        }
+        return detailedPerCode < 0 || detailed.get(code.ordinal()) < detailedPerCode;
+    }
+
+    /** Returns the description of the first failure with {@code code}, shared by the later ones. */
+    public String getDescription(Status.Code code) {
+        String description = descriptions.get(code.ordinal());
+        return description == null ? code.name() : description;
+    }
+
+    public long getFailures(Status.Code code) {
+        return failures[code.ordinal()].sum();
+    }
+
+    /** Logs the failures per code and resets them, so the next test re-reads its configuration. */
+    public synchronized void stop() {
+        StringBuilder counts = new StringBuilder();
+        for (Status.Code code : CODES) {
+            long count = failures[code.ordinal()].sumThenReset();
+            if (count > 0) {
+                counts.append(' ').append(code).append('=').append(count);
+            }
+            detailed.set(code.ordinal(), 0);
+            descriptions.set(code.ordinal(), null);
+        }
+        if (counts.length() > 0) {
+            LOGGER.info("[GRPC] errors{}", counts);
+        }
+        configured = false;
+    }
+
+    private static String describe(Status status) {
+        if (status.getDescription() != null) {
+            return status.getDescription();
+        }
+        return status.getCause() == null ? status.getCode().name() : status.getCause().toString();
+    }
+
+    private synchronized void configure() {
+        if (configured) {
+            return;
+        }
+        detailedPerCode = JMeterUtils.getPropDefault(DETAILED_ERRORS_PROPERTY, -1L);
+        configured = true;
+    }
+}
@@ -0,0 +1,231 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import io.grpc.Status;
+
+import lombok.Value;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-resolution call latencies per method and status code, kept in HdrHistograms instead of
+ * being derived from the JMeter results.
+ *
+ * <p>Every thread records into its own {@link SingleWriterRecorder}s, so recording is wait-free
+ * and never contended. A daemon merges the interval histograms of all threads into the totals
+ * every {@code grpc.request.latency.merge.interval.seconds}; at test end the totals are logged and
+ * written as {@code .hgrm} percentile distributions to {@code grpc.request.latency.dir}. Recording
+ * is enabled by setting that directory. With {@code grpc.request.latency.expectedIntervalMs}
+ * calls slower than the expected interval between calls are corrected for coordinated omission.
+ */
+public final class LatencyRecorder {
+    public static final String LATENCY_DIR_PROPERTY = "grpc.request.latency.dir";
+    public static final String EXPECTED_INTERVAL_PROPERTY =
+            "grpc.request.latency.expectedIntervalMs";
+    public static final String MERGE_INTERVAL_PROPERTY =
+            "grpc.request.latency.merge.interval.seconds";
+    private static final int DEFAULT_MERGE_INTERVAL_SECONDS = 5;
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final Logger LOGGER = LoggerFactory.getLogger(LatencyRecorder.class);
+    private static final LatencyRecorder INSTANCE = new LatencyRecorder();
+
+    private final Queue<ThreadRecorder> threadRecorders = new ConcurrentLinkedQueue<>();
+    private final Map<Key, Histogram> totals = new HashMap<>();
+    private final ThreadLocal<ThreadRecorders> recorders = new ThreadLocal<>();
+
+    private volatile boolean configured;
+    private volatile boolean enabled;
+    // Bumped on stop, so threads drop the recorders which are no longer merged.
+    private volatile int generation;
+    private String directory;
+    private long expectedIntervalMicros;
+    private ScheduledExecutorService merger;
+
+    private LatencyRecorder() {}
+
+    public static LatencyRecorder get() {
+        return INSTANCE;
+    }
+
+    /** Records one call of {@code method} which ended with {@code code} after {@code nanos}. */
+    public void record(String method, Status.Code code, long nanos) {
+        if (!configured) {
+            configure();
+        }
+        if (!enabled) {
+            return;
+        }
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        SingleWriterRecorder recorder = recorderFor(new Key(method, code));
+        if (expectedIntervalMicros > 0) {
+            recorder.recordValueWithExpectedInterval(micros, expectedIntervalMicros);
+        } else {
+            recorder.recordValue(micros);
+        }
+    }
+
+    private SingleWriterRecorder recorderFor(Key key) {
+        ThreadRecorders current = recorders.get();
+        if (current == null || current.generation != generation) {
+            current = new ThreadRecorders(generation);
+            recorders.set(current);
+        }
+        SingleWriterRecorder recorder = current.byKey.get(key);
+        if (recorder == null) {
+            recorder = new SingleWriterRecorder(SIGNIFICANT_DIGITS);
+            current.byKey.put(key, recorder);
+            threadRecorders.add(new ThreadRecorder(key, recorder));
+        }
+        return recorder;
+    }
+
+    /** Adds what every thread recorded since the previous merge to the totals. */
+    public synchronized void merge() {
+        for (ThreadRecorder threadRecorder : threadRecorders) {
+            Histogram interval = threadRecorder.recorder.getIntervalHistogram();
+            if (interval.getTotalCount() > 0) {
+                totals.computeIfAbsent(
+                                threadRecorder.key, key -> new Histogram(SIGNIFICANT_DIGITS))
+                        .add(interval);
+            }
+        }
+    }
+
+    /** Returns a copy of the merged totals, in microseconds. */
+    public synchronized Map<Key, Histogram> snapshot() {
+        Map<Key, Histogram> result = new LinkedHashMap<>();
+        totals.forEach((key, histogram) -> result.put(key, histogram.copy()));
+        return result;
+    }
+
+    /**
+     * Merges the last recordings, logs the percentiles and writes one {@code .hgrm} file per
+     * method and status, then resets everything so the next test re-reads its configuration.
+     */
+    public synchronized void stop() {
+        if (merger != null) {
+            merger.shutdownNow();
+            merger = null;
+        }
+        if (enabled) {
+            merge();
+            totals.forEach(this::report);
+        }
+        generation++;
+        threadRecorders.clear();
+        totals.clear();
+        enabled = false;
+        configured = false;
+    }
+
+    private void report(Key key, Histogram histogram) {
+        LOGGER.info(
+                "[GRPC] latency method={} status={} count={} p50={}ms p99={}ms p99.9={}ms"
+                        + " p99.99={}ms max={}ms",
+                key.getMethod(),
+                key.getCode(),
+                histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getValueAtPercentile(99.99)),
+                millis(histogram.getMaxValue()));
+        Path file = Paths.get(directory, key.getFileName());
+        try (OutputStream out = Files.newOutputStream(file);
+                PrintStream printStream =
+                        new PrintStream(out, false, StandardCharsets.UTF_8.name())) {
+            // Values are recorded in microseconds and written in milliseconds.
+            histogram.outputPercentileDistribution(printStream, 5, 1000.0);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write latency histogram {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private synchronized void configure() {
+        if (configured) {
+            return;
+        }
+        directory = JMeterUtils.getPropDefault(LATENCY_DIR_PROPERTY, "");
+        enabled = !directory.trim().isEmpty();
+        if (enabled) {
+            try {
+                Files.createDirectories(Paths.get(directory));
+            } catch (IOException e) {
+                LOGGER.warn(
+                        "Latency recording disabled, cannot create {}: {}",
+                        directory,
+                        e.getMessage());
+                enabled = false;
+            }
+        }
+        expectedIntervalMicros =
+                TimeUnit.MILLISECONDS.toMicros(
+                        JMeterUtils.getPropDefault(EXPECTED_INTERVAL_PROPERTY, 0L));
+        int mergeSeconds =
+                JMeterUtils.getPropDefault(MERGE_INTERVAL_PROPERTY, DEFAULT_MERGE_INTERVAL_SECONDS);
+        if (enabled && mergeSeconds > 0) {
+            merger =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "grpc-request-latency");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            merger.scheduleAtFixedRate(this::merge, mergeSeconds, mergeSeconds, TimeUnit.SECONDS);
+        }
+        configured = true;
+    }
+
+    /** Full method name and status code under which latencies are aggregated. */
+    @Value
+    public static class Key {
+        String method;
+        Status.Code code;
+
+        String getFileName() {
+            return method.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + code + ".hgrm";
+        }
+    }
+
+    private static final class ThreadRecorders {
+        private final int generation;
+        private final Map<Key, SingleWriterRecorder> byKey = new HashMap<>();
+
+        private ThreadRecorders(int generation) {
+            this.generation = generation;
+        }
+    }
+
+    private static final class ThreadRecorder {
+        private final Key key;
+        private final SingleWriterRecorder recorder;
+
+        private ThreadRecorder(Key key, SingleWriterRecorder recorder) {
+            this.key = key;
+            this.recorder = recorder;
+        }
+    }
+}
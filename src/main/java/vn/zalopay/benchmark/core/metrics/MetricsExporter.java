@@ -0,0 +1,101 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the {@link RpcMetrics} on {@code http://<host>:<grpc.request.metrics.port>/metrics} for
+ * Prometheus (or any OpenMetrics compatible scraper), so every load generator is one scrape target
+ * during long runs. Uses the HTTP server of the JDK and is disabled while the port is 0.
+ */
+public final class MetricsExporter {
+    public static final String METRICS_PORT_PROPERTY = "grpc.request.metrics.port";
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsExporter.class);
+    private static final MetricsExporter INSTANCE = new MetricsExporter();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private MetricsExporter() {}
+
+    public static MetricsExporter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the endpoint on the configured port unless it is running already or disabled. A port
+     * which cannot be bound is logged and leaves the exporter off, the test runs anyway.
+     */
+    public synchronized void start() {
+        int port = JMeterUtils.getPropDefault(METRICS_PORT_PROPERTY, 0);
+        if (server != null || port <= 0) {
+            return;
+        }
+        try {
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+            httpServer.createContext("/metrics", this::handle);
+            executor =
+                    Executors.newSingleThreadExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "grpc-request-metrics");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            httpServer.setExecutor(executor);
+            RpcMetrics.get().start();
+            httpServer.start();
+            server = httpServer;
+            LOGGER.info("[GRPC] metrics served on port {}", getPort());
+        } catch (IOException e) {
+            LOGGER.warn("Metrics endpoint disabled, cannot bind port {}: {}", port, e.getMessage());
+            stop();
+        }
+    }
+
+    /** Returns the bound port, or -1 when the exporter is not running. */
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /** Stops the endpoint and clears the metrics for the next test. */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        RpcMetrics.get().reset();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = RpcMetrics.get().render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live call and channel metrics served by the {@link MetricsExporter}, in the Prometheus text
+ * format.
+ *
+ * <p>Completed calls are counted per method and status code together with their latency (in
+ * fixed buckets) and bytes; in-flight calls come from {@link CallStats}. Watched channels report
+ * every state transition, how many channels are in each state and how many are connected. Calls
+ * per backend come from {@link BackendStats}. Nothing is recorded unless the exporter is running.
+ */
+public final class RpcMetrics {
+    static final double[] BUCKET_SECONDS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+    private static final ConnectivityState[] STATES = ConnectivityState.values();
+    private static final RpcMetrics INSTANCE = new RpcMetrics();
+
+    static {
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKET_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private final ConcurrentMap<LatencyRecorder.Key, Series> series = new ConcurrentHashMap<>();
+    private final AtomicLongArray transitions = new AtomicLongArray(STATES.length);
+    private final AtomicLongArray channels = new AtomicLongArray(STATES.length);
+
+    private volatile boolean enabled;
+    // Bumped on reset, so callbacks of channels watched by an earlier test are ignored.
+    private volatile int generation;
+
+    private RpcMetrics() {}
+
+    public static RpcMetrics get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Records one completed call of {@code method}. */
+    public void callCompleted(
+            String method, Status.Code code, long nanos, long sentBytes, long receivedBytes) {
+        if (!enabled) {
+            return;
+        }
+        Series s =
+                series.computeIfAbsent(
+                        new LatencyRecorder.Key(method, code), key -> new Series());
+        int bucket = 0;
+        while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+            bucket++;
+        }
+        s.buckets[bucket].increment();
+        s.sumNanos.add(Math.max(0, nanos));
+        s.sentBytes.add(sentBytes);
+        s.receivedBytes.add(receivedBytes);
+    }
+
+    /** Follows the state of {@code channel} until it is shut down. */
+    public void watchChannel(ManagedChannel channel) {
+        if (!enabled) {
+            return;
+        }
+        ConnectivityState state = channel.getState(false);
+        channels.incrementAndGet(state.ordinal());
+        watch(channel, state, generation);
+    }
+
+    private void watch(ManagedChannel channel, ConnectivityState previous, int watchGeneration) {
+        channel.notifyWhenStateChanged(
+                previous, () -> stateChanged(channel, previous, watchGeneration));
+    }
+
+    private void stateChanged(
+            ManagedChannel channel, ConnectivityState previous, int watchGeneration) {
+        if (watchGeneration != generation) {
+            return;
+        }
+        ConnectivityState state = channel.getState(false);
+        if (state != previous) {
+            transitions.incrementAndGet(state.ordinal());
+            channels.decrementAndGet(previous.ordinal());
+            if (state == ConnectivityState.SHUTDOWN) {
+                return;
+            }
+            channels.incrementAndGet(state.ordinal());
+        }
+        watch(channel, state, watchGeneration);
+    }
+
+    void start() {
+        enabled = true;
+    }
+
+    /** Stops recording and clears every metric. */
+    void reset() {
+        enabled = false;
+        generation++;
+        series.clear();
+        for (int i = 0; i < STATES.length; i++) {
+            transitions.set(i, 0);
+            channels.set(i, 0);
+        }
+    }
+
+    /** Renders every metric in the Prometheus text exposition format (version 0.0.4). */
+    public String render() {
+        Map<LatencyRecorder.Key, Series> sorted =
+                new TreeMap<>(
+                        (a, b) -> {
+                            int byMethod = a.getMethod().compareTo(b.getMethod());
+                            return byMethod != 0 ? byMethod : a.getCode().compareTo(b.getCode());
+                        });
+        sorted.putAll(series);
+        Map<String, long[]> bytesByMethod = new TreeMap<>();
+        StringBuilder out = new StringBuilder();
+
+        header(out, "grpc_request_rpcs_total", "counter", "Completed calls by method and status.");
+        sorted.forEach(
+                (key, s) -> {
+                    sample(out, "grpc_request_rpcs_total", labels(key, null), s.count());
+                    long[] bytes =
+                            bytesByMethod.computeIfAbsent(key.getMethod(), m -> new long[2]);
+                    bytes[0] += s.sentBytes.sum();
+                    bytes[1] += s.receivedBytes.sum();
+                });
+
+        header(out, "grpc_request_rpc_duration_seconds", "histogram", "Call latency.");
+        sorted.forEach(
+                (key, s) -> {
+                    long cumulative = 0;
+                    for (int i = 0; i < s.buckets.length; i++) {
+                        cumulative += s.buckets[i].sum();
+                        String le = i < BUCKET_SECONDS.length ? number(BUCKET_SECONDS[i]) : "+Inf";
+                        sample(
+                                out,
+                                "grpc_request_rpc_duration_seconds_bucket",
+                                labels(key, le),
+                                cumulative);
+                    }
+                    out.append("grpc_request_rpc_duration_seconds_sum")
+                            .append(labels(key, null))
+                            .append(' ')
+                            .append(number(s.sumNanos.sum() / 1e9))
+                            .append('\n');
+                    sample(
+                            out,
+                            "grpc_request_rpc_duration_seconds_count",
+                            labels(key, null),
+                            cumulative);
+                });
+
+        CallStats.Snapshot stats = CallStats.get().snapshot();
+        header(out, "grpc_request_in_flight_calls", "gauge", "Calls started and not finished.");
+        sample(
+                out,
+                "grpc_request_in_flight_calls",
+                "",
+                Math.max(0, stats.getStarted() - stats.getSucceeded() - stats.getFailed()));
+
+        header(
+                out,
+                "grpc_request_channel_rebuilds_total",
+                "counter",
+                "Channels replaced because they were shut down.");
+        sample(out, "grpc_request_channel_rebuilds_total", "", stats.getChannelRebuilds());
+
+        header(out, "grpc_request_sent_bytes_total", "counter", "Request bytes by method.");
+        bytesByMethod.forEach(
+                (method, bytes) ->
+                        sample(
+                                out,
+                                "grpc_request_sent_bytes_total",
+                                "{method=\"" + escape(method) + "\"}",
+                                bytes[0]));
+        header(out, "grpc_request_received_bytes_total", "counter", "Response bytes by method.");
+        bytesByMethod.forEach(
+                (method, bytes) ->
+                        sample(
+                                out,
+                                "grpc_request_received_bytes_total",
+                                "{method=\"" + escape(method) + "\"}",
+                                bytes[1]));
+
+        Map<String, BackendStats.Snapshot> backends = BackendStats.get().snapshot();
+        header(out, "grpc_request_backend_rpcs_total", "counter", "Completed calls by backend.");
+        backends.forEach(
+                (backend, totals) ->
+                        sample(
+                                out,
+                                "grpc_request_backend_rpcs_total",
+                                backendLabel(backend),
+                                totals.getCalls()));
+        header(out, "grpc_request_backend_failures_total", "counter", "Failed calls by backend.");
+        backends.forEach(
+                (backend, totals) ->
+                        sample(
+                                out,
+                                "grpc_request_backend_failures_total",
+                                backendLabel(backend),
+                                totals.getFailures()));
+        header(out, "grpc_request_backend_duration_seconds", "summary", "Latency by backend.");
+        backends.forEach(
+                (backend, totals) -> {
+                    out.append("grpc_request_backend_duration_seconds_sum")
+                            .append(backendLabel(backend))
+                            .append(' ')
+                            .append(number(totals.getSumNanos() / 1e9))
+                            .append('\n');
+                    sample(
+                            out,
+                            "grpc_request_backend_duration_seconds_count",
+                            backendLabel(backend),
+                            totals.getCalls());
+                });
+
+        header(
+                out,
+                "grpc_request_channel_state_transitions_total",
+                "counter",
+                "Channel state transitions by new state.");
+        for (ConnectivityState state : STATES) {
+            sample(
+                    out,
+                    "grpc_request_channel_state_transitions_total",
+                    "{state=\"" + state + "\"}",
+                    transitions.get(state.ordinal()));
+        }
+        header(out, "grpc_request_channels", "gauge", "Open channels by state.");
+        for (ConnectivityState state : STATES) {
+            if (state != ConnectivityState.SHUTDOWN) {
+                sample(
+                        out,
+                        "grpc_request_channels",
+                        "{state=\"" + state + "\"}",
+                        channels.get(state.ordinal()));
+            }
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static String labels(LatencyRecorder.Key key, String le) {
+        StringBuilder labels =
+                new StringBuilder("{method=\"")
+                        .append(escape(key.getMethod()))
+                        .append("\",code=\"")
+                        .append(key.getCode())
+                        .append('"');
+        if (le != null) {
+            labels.append(",le=\"").append(le).append('"');
+        }
+        return labels.append('}').toString();
+    }
+
+    private static String backendLabel(String backend) {
+        return "{backend=\"" + escape(backend) + "\"}";
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%s", value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Series {
+        // One bucket per upper bound plus the +Inf bucket, not cumulative.
+        private final LongAdder[] buckets = new LongAdder[BUCKET_SECONDS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAdder sentBytes = new LongAdder();
+        private final LongAdder receivedBytes = new LongAdder();
+
+        private Series() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package vn.zalopay.benchmark.core.protobuf;
+
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.util.JsonFormat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of compiled proto descriptors, shared by every sampler thread of a test.
+ *
+ * <p>Each distinct combination of proto root, library folders and inline content is compiled by
+ * protoc exactly once; concurrent threads asking for the same key wait for the first compilation
+ * instead of invoking protoc themselves. A failed compilation is not cached, so the next caller
+ * retries and reports its own error.
+ */
+public class DescriptorCache {
+    private static final Logger logger = LoggerFactory.getLogger(DescriptorCache.class);
+    private static final String KEY_SEPARATOR = "\u0000";
+    private static final Map<String, Supplier<CompiledProtos>> CACHE = new ConcurrentHashMap<>();
+
+    private DescriptorCache() {}
+
+    /** Returns the compiled descriptors for a proto root and its library folders. */
+    public static CompiledProtos forConfig(String protoDiscoveryRoot, String libFolder) {
+        String key = cacheKey("config", protoDiscoveryRoot, libFolder);
+        return get(key, () -> ProtocInvoker.forConfig(protoDiscoveryRoot, libFolder).invoke());
+    }
+
+    /** Returns the compiled descriptors for inline proto content and its library content. */
+    public static CompiledProtos forInline(String protoContent, String libContentZipBase64) {
+        String key = cacheKey("inline", protoContent, libContentZipBase64);
+        return get(
+                key, () -> ProtocInvoker.forInline(protoContent, libContentZipBase64).invoke());
+    }
+
+    /** Drops every cached entry, e.g. at test end so that edited protos are picked up. */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    public static int size() {
+        return CACHE.size();
+    }
+
+    private static CompiledProtos get(String key, Supplier<FileDescriptorSet> compiler) {
+        Supplier<CompiledProtos> entry =
+                CACHE.computeIfAbsent(
+                        key,
+                        k ->
+                                Suppliers.memoize(
+                                        () -> {
+                                            logger.info("Compiling proto descriptors for cache");
+                                            return CompiledProtos.of(compiler.get());
+                                        }));
+        return entry.get();
+    }
+
+    private static String cacheKey(String kind, String first, String second) {
+        return kind
+                + KEY_SEPARATOR
+                + Strings.nullToEmpty(first)
+                + KEY_SEPARATOR
+                + Strings.nullToEmpty(second);
+    }
+
+    /** Immutable result of one protoc compilation, safe to share between threads. */
+    public static final class CompiledProtos {
+        private final FileDescriptorSet fileDescriptorSet;
+        private final ServiceResolver serviceResolver;
+        private final JsonFormat.TypeRegistry typeRegistry;
+
+        private CompiledProtos(
+                FileDescriptorSet fileDescriptorSet,
+                ServiceResolver serviceResolver,
+                JsonFormat.TypeRegistry typeRegistry) {
+            this.fileDescriptorSet = fileDescriptorSet;
+            this.serviceResolver = serviceResolver;
+            this.typeRegistry = typeRegistry;
+        }
+
+        static CompiledProtos of(FileDescriptorSet fileDescriptorSet) {
+            ServiceResolver serviceResolver =
+                    ServiceResolver.fromFileDescriptorSet(fileDescriptorSet);
+            // This collects all known types into a registry for resolution of potential "Any"
+            // types.
+            JsonFormat.TypeRegistry typeRegistry =
+                    JsonFormat.TypeRegistry.newBuilder()
+                            .add(serviceResolver.listMessageTypes())
+                            .build();
+            return new CompiledProtos(fileDescriptorSet, serviceResolver, typeRegistry);
+        }
+
+        public FileDescriptorSet getFileDescriptorSet() {
+            return fileDescriptorSet;
+        }
+
+        public ServiceResolver getServiceResolver() {
+            return serviceResolver;
+        }
+
+        public JsonFormat.TypeRegistry getTypeRegistry() {
+            return typeRegistry;
+        }
+    }
+}
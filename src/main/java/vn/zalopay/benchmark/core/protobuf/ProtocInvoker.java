@@ -5,6 +5,8 @@ import com.github.os72.protocjar.ProtocVersion;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
 
 import org.apache.commons.io.FileUtils;
@@ -16,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import vn.zalopay.benchmark.exception.ProtocInvocationException;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,6 +35,8 @@ public class ProtocInvoker {
     private static final List<Path> PROTO_TEMP_FOLDER_PATHS = new ArrayList<>();
     private static final int LARGE_FOLDER_LIMIT = 100;
     public static final String DESCRIPTOR_EXTENSION = ".bin";
+    public static final String PROTOC_VERSION_PROPERTY = "grpc.request.protoc.version";
+    public static final String DESCRIPTOR_CACHE_DIR_PROPERTY = "grpc.request.descriptor.cache.dir";
     private final ImmutableList<Path> protocIncludePaths;
     private final Path discoveryRoot;
 
@@ -234,20 +239,102 @@ public class ProtocInvoker {
             }
         }
 
+        final ImmutableSet<String> protoFilePaths = scanProtoFiles(discoveryRoot);
+
+        Path cachedDescriptorPath = generateCachedDescriptorPath(protoFilePaths);
+        if (cachedDescriptorPath != null && Files.exists(cachedDescriptorPath)) {
+            try {
+                FileDescriptorSet cached =
+                        FileDescriptorSet.parseFrom(Files.readAllBytes(cachedDescriptorPath));
+                logger.info("Loaded proto descriptors from cache: {}", cachedDescriptorPath);
+                return cached;
+            } catch (IOException e) {
+                logger.warn(
+                        "Unable to read cached descriptor {}, invoking protoc: {}",
+                        cachedDescriptorPath,
+                        e.getMessage());
+            }
+        }
+
         Path wellKnownTypesInclude = generateWellKnownTypesInclude();
 
         Path descriptorPath = generateDescriptorPath();
 
         PROTO_TEMP_FOLDER_PATHS.addAll(Arrays.asList(descriptorPath, wellKnownTypesInclude));
 
-        final ImmutableSet<String> protoFilePaths = scanProtoFiles(discoveryRoot);
-
         ImmutableList<String> protocArgs =
                 generateProtocArgs(protoFilePaths, descriptorPath, wellKnownTypesInclude);
 
         invokeBinary(protocArgs);
 
-        return generateFileDescriptorSet(descriptorPath);
+        FileDescriptorSet fileDescriptorSet = generateFileDescriptorSet(descriptorPath);
+        if (cachedDescriptorPath != null) {
+            storeCachedDescriptor(descriptorPath, cachedDescriptorPath);
+        }
+        return fileDescriptorSet;
+    }
+
+    /**
+     * Returns the location of the persistent descriptor for the current proto tree, or null when
+     * the descriptor cache is disabled. The file name is a SHA-256 of the protoc version and of the
+     * relative path and content of every proto file in the discovery root and include paths, so
+     * load generators with identical protos in different locations share the same entry.
+     */
+    private Path generateCachedDescriptorPath(ImmutableSet<String> protoFilePaths) {
+        String cacheDir = JMeterUtils.getPropDefault(DESCRIPTOR_CACHE_DIR_PROPERTY, "");
+        if (cacheDir == null || cacheDir.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            Hasher hasher = Hashing.sha256().newHasher();
+            hasher.putString(getProtocVersion(), StandardCharsets.UTF_8);
+            hashProtoFiles(hasher, discoveryRoot, protoFilePaths);
+            for (Path includePath : protocIncludePaths) {
+                hashProtoFiles(hasher, includePath, scanProtoFiles(includePath));
+            }
+            return Paths.get(cacheDir.trim())
+                    .resolve("descriptor-" + hasher.hash() + DESCRIPTOR_EXTENSION);
+        } catch (IOException | ProtocInvocationException e) {
+            logger.warn("Unable to compute descriptor cache key: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void hashProtoFiles(Hasher hasher, Path root, ImmutableSet<String> protoFiles)
+            throws IOException {
+        Path absoluteRoot = root.toAbsolutePath();
+        List<String> sortedFiles = new ArrayList<>(protoFiles);
+        Collections.sort(sortedFiles);
+        hasher.putInt(sortedFiles.size());
+        for (String protoFile : sortedFiles) {
+            Path path = Paths.get(protoFile);
+            String relativePath = absoluteRoot.relativize(path).toString().replace('\\', '/');
+            byte[] content = Files.readAllBytes(path);
+            hasher.putString(relativePath, StandardCharsets.UTF_8);
+            hasher.putInt(content.length);
+            hasher.putBytes(content);
+        }
+    }
+
+    private static void storeCachedDescriptor(Path descriptorPath, Path cachedDescriptorPath) {
+        try {
+            Files.createDirectories(cachedDescriptorPath.getParent());
+            Path tempPath =
+                    Files.createTempFile(
+                            cachedDescriptorPath.getParent(), "descriptor", ".tmp");
+            Files.copy(descriptorPath, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(tempPath, cachedDescriptorPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, cachedDescriptorPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Stored proto descriptors in cache: {}", cachedDescriptorPath);
+        } catch (IOException e) {
+            logger.warn(
+                    "Unable to store descriptor in cache {}: {}",
+                    cachedDescriptorPath,
+                    e.getMessage());
+        }
     }
 
     private Path generateWellKnownTypesInclude() {
@@ -272,11 +359,14 @@ public class ProtocInvoker {
         }
     }
 
+    private static String getProtocVersion() {
+        return JMeterUtils.getPropDefault(
+                PROTOC_VERSION_PROPERTY, ProtocVersion.PROTOC_VERSION.mVersion);
+    }
+
     private ImmutableList<String> generateProtocArgs(
             ImmutableSet<String> protoFilePaths, Path descriptorPath, Path wellKnownTypesInclude) {
-        String protocVersion =
-                JMeterUtils.getPropDefault(
-                        "grpc.request.protoc.version", ProtocVersion.PROTOC_VERSION.mVersion);
+        String protocVersion = getProtocVersion();
         ImmutableList<String> protocArgs = ImmutableList.<String>builder().build();
 
         // Large folder processing, solve CreateProcess error=206
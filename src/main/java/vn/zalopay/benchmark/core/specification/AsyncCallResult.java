@@ -0,0 +1,15 @@
+package vn.zalopay.benchmark.core.specification;
+
+import lombok.Value;
+
+/** Outcome of one call sent in async mode, with its wall-clock start and end in milliseconds. */
+@Value
+public class AsyncCallResult {
+    GrpcResponse response;
+    long startTime;
+    long endTime;
+
+    public long getElapsed() {
+        return endTime - startTime;
+    }
+}
@@ -0,0 +1,212 @@
+package vn.zalopay.benchmark.core.specification;
+
+import io.grpc.Attributes;
+import io.grpc.ClientStreamTracer;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Phases of one call, measured with {@link System#nanoTime()} from the events of a {@link
+ * ClientStreamTracer} and the response observer.
+ *
+ * <ul>
+ *   <li>encode: building the request message and metadata for the sample
+ *   <li>queue: from the call start until its headers were written to the transport (channel and
+ *       connection setup, waiting for a stream)
+ *   <li>headers: from the call start until the response headers arrived
+ *   <li>last byte: from the call start until the trailers arrived
+ *   <li>decode: from reading a message off the wire until the observer got it parsed, summed over
+ *       messages (deserialization and the hand-off to the application executor)
+ *   <li>render: time spent printing responses as JSON, summed over messages
+ * </ul>
+ *
+ * A phase which did not happen (e.g. the call failed before sending headers) is reported as -1.
+ * The tracer also counts the attempts of the call: one per stream, so retries and hedged attempts
+ * run by a service config show up as more than one. With several attempts the transport events
+ * are those of the latest one, as is the backend: the remote address of the connection which
+ * carried the stream, picked by the load balancing policy of the channel.
+ *
+ * <p>An exchange on a bidi session shares its stream with the other exchanges of the session, see
+ * {@link #exchangeTracerFactory}: its queue phase ends when its request message was written to the
+ * transport, and its headers and last byte phases when the first response message after it was
+ * read off the wire.
+ */
+public final class CallTimings {
+    private final long startNanos;
+    private long encodeNanos = -1;
+    private volatile long headersSentNanos;
+    private volatile long responseHeadersNanos;
+    private volatile long lastByteNanos;
+    private volatile long messageReadNanos;
+    private long decodeNanos;
+    private long renderNanos;
+    private final AtomicInteger attempts = new AtomicInteger();
+    private volatile String backend;
+
+    CallTimings(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /** Returns a tracer factory which records the transport events of one call. */
+    public ClientStreamTracer.Factory tracerFactory() {
+        return new ClientStreamTracer.Factory() {
+            @Override
+            public ClientStreamTracer newClientStreamTracer(
+                    ClientStreamTracer.StreamInfo info, Metadata headers) {
+                attempts.incrementAndGet();
+                return new Tracer();
+            }
+        };
+    }
+
+    /**
+     * Returns a tracer factory for a stream carrying successive exchanges, which records the
+     * events of the stream in the timings {@code current} returns: those of the exchange in
+     * progress, or null between exchanges.
+     */
+    public static ClientStreamTracer.Factory exchangeTracerFactory(Supplier<CallTimings> current) {
+        return new ClientStreamTracer.Factory() {
+            @Override
+            public ClientStreamTracer newClientStreamTracer(
+                    ClientStreamTracer.StreamInfo info, Metadata headers) {
+                return new ExchangeTracer(current);
+            }
+        };
+    }
+
+    public void setEncodeNanos(long encodeNanos) {
+        this.encodeNanos = encodeNanos;
+    }
+
+    /** Marks the delivery of a parsed message to the observer. */
+    public void messageDelivered() {
+        long read = messageReadNanos;
+        if (read != 0) {
+            decodeNanos += System.nanoTime() - read;
+            messageReadNanos = 0;
+        }
+    }
+
+    public void addRenderNanos(long nanos) {
+        renderNanos += nanos;
+    }
+
+    public long getEncodeNanos() {
+        return encodeNanos;
+    }
+
+    public long getQueueNanos() {
+        return sinceStart(headersSentNanos);
+    }
+
+    public long getResponseHeadersNanos() {
+        return sinceStart(responseHeadersNanos);
+    }
+
+    public long getLastByteNanos() {
+        return sinceStart(lastByteNanos);
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    public long getRenderNanos() {
+        return renderNanos;
+    }
+
+    /** Returns the number of streams opened for the call, 0 if it never reached the transport. */
+    public int getAttempts() {
+        return attempts.get();
+    }
+
+    /** Returns the {@code host:port} which served the call, null if it never reached one. */
+    public String getBackend() {
+        return backend;
+    }
+
+    private long sinceStart(long eventNanos) {
+        return eventNanos == 0 ? -1 : eventNanos - startNanos;
+    }
+
+    private static String remoteAddress(Attributes transportAttrs) {
+        SocketAddress address = transportAttrs.get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+        if (address instanceof InetSocketAddress) {
+            InetSocketAddress inet = (InetSocketAddress) address;
+            return inet.getHostString() + ":" + inet.getPort();
+        }
+        return address == null ? null : address.toString();
+    }
+
+    private final class Tracer extends ClientStreamTracer {
+        @Override
+        public void streamCreated(Attributes transportAttrs, Metadata headers) {
+            backend = remoteAddress(transportAttrs);
+        }
+
+        @Override
+        public void outboundHeaders() {
+            headersSentNanos = System.nanoTime();
+        }
+
+        @Override
+        public void inboundHeaders() {
+            responseHeadersNanos = System.nanoTime();
+        }
+
+        @Override
+        public void inboundMessageRead(
+                int seqNo, long optionalWireSize, long optionalUncompressedSize) {
+            messageReadNanos = System.nanoTime();
+        }
+
+        @Override
+        public void inboundTrailers(Metadata trailers) {
+            lastByteNanos = System.nanoTime();
+        }
+    }
+
+    private static final class ExchangeTracer extends ClientStreamTracer {
+        private final Supplier<CallTimings> current;
+        private volatile String streamBackend;
+
+        private ExchangeTracer(Supplier<CallTimings> current) {
+            this.current = current;
+        }
+
+        @Override
+        public void streamCreated(Attributes transportAttrs, Metadata headers) {
+            streamBackend = remoteAddress(transportAttrs);
+        }
+
+        @Override
+        public void outboundMessageSent(
+                int seqNo, long optionalWireSize, long optionalUncompressedSize) {
+            CallTimings timings = current.get();
+            if (timings != null) {
+                timings.attempts.set(1);
+                timings.backend = streamBackend;
+                timings.headersSentNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void inboundMessageRead(
+                int seqNo, long optionalWireSize, long optionalUncompressedSize) {
+            CallTimings timings = current.get();
+            if (timings != null && timings.headersSentNanos != 0) {
+                long now = System.nanoTime();
+                timings.messageReadNanos = now;
+                if (timings.responseHeadersNanos == 0) {
+                    timings.responseHeadersNanos = now;
+                    timings.lastByteNanos = now;
+                }
+            }
+        }
+    }
+}
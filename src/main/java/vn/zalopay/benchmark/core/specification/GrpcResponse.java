@@ -1,5 +1,7 @@
 package vn.zalopay.benchmark.core.specification;
 
+import io.grpc.Status;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -7,10 +9,44 @@ public class GrpcResponse {
 
     private boolean success;
     private Throwable throwable;
+    private long responseBytes;
     private final List<Object> output;
+    // Timing of received messages, relative to the creation of the response (the call start).
+    private final long startTimeMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final CallTimings timings = new CallTimings(startNanos);
+    private int messageCount;
+    private long firstMessageNanos;
+    private long lastMessageNanos;
+    private long maxMessageGapNanos;
+    private final List<MessageTiming> messageTimings;
+    private int sentMessageCount;
+    private long sentBytes;
+    private boolean detailedError = true;
 
     public GrpcResponse() {
+        this(false);
+    }
+
+    /**
+     * @param recordMessageTimings whether the arrival time and size of every message is kept, in
+     *     addition to the aggregated timing
+     */
+    public GrpcResponse(boolean recordMessageTimings) {
         output = new ArrayList<>();
+        messageTimings = recordMessageTimings ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Returns whether a failure should be reported with its cause chain and stack trace, or only
+     * with its status code and the shared description of the code.
+     */
+    public boolean isDetailedError() {
+        return detailedError;
+    }
+
+    public void setDetailedError(boolean detailedError) {
+        this.detailedError = detailedError;
     }
 
     public boolean isSuccess() {
@@ -33,6 +69,94 @@ public class GrpcResponse {
         output.add(message);
     }
 
+    /** Records the arrival of a message of the given serialized size. */
+    public void recordMessage(int serializedSize) {
+        long now = System.nanoTime();
+        if (messageCount == 0) {
+            firstMessageNanos = now;
+        } else {
+            maxMessageGapNanos = Math.max(maxMessageGapNanos, now - lastMessageNanos);
+        }
+        lastMessageNanos = now;
+        messageCount++;
+        responseBytes += serializedSize;
+        if (messageTimings != null) {
+            messageTimings.add(
+                    new MessageTiming(
+                            startTimeMillis + (now - startNanos) / 1_000_000L, serializedSize));
+        }
+    }
+
+    /** Records a request message of the given serialized size sent on the call. */
+    public void recordSentMessage(int serializedSize) {
+        sentMessageCount++;
+        sentBytes += serializedSize;
+    }
+
+    public int getSentMessageCount() {
+        return sentMessageCount;
+    }
+
+    /** Returns the total serialized size in bytes of the request messages sent so far. */
+    public long getSentBytes() {
+        return sentBytes;
+    }
+
+    /** Returns the wall-clock time in milliseconds at which the call started. */
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    /** Returns the phase timings of the call. */
+    public CallTimings getTimings() {
+        return timings;
+    }
+
+    /** Returns the nanoseconds elapsed since the call started. */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /** Returns the total serialized size in bytes of the messages received so far. */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /** Returns the nanoseconds from the call start to the first message, or -1 without message. */
+    public long getTimeToFirstMessageNanos() {
+        return messageCount == 0 ? -1 : firstMessageNanos - startNanos;
+    }
+
+    /** Returns the longest time in nanoseconds between two consecutive messages. */
+    public long getMaxMessageGapNanos() {
+        return maxMessageGapNanos;
+    }
+
+    /** Returns the mean time in nanoseconds between two consecutive messages. */
+    public long getMeanMessageGapNanos() {
+        return messageCount < 2 ? 0 : (lastMessageNanos - firstMessageNanos) / (messageCount - 1);
+    }
+
+    /** Returns the timing of every message, or null when they are not recorded. */
+    public List<MessageTiming> getMessageTimings() {
+        return messageTimings;
+    }
+
+    /**
+     * Returns the gRPC status of the call: derived from the failure if there is one, {@link
+     * Status.Code#OK} once the call succeeded, or {@code null} while nothing is known yet.
+     */
+    public Status.Code getStatusCode() {
+        if (throwable != null) {
+            return Status.fromThrowable(throwable).getCode();
+        }
+        return success ? Status.Code.OK : null;
+    }
+
     public String getGrpcMessageString() {
         if (output.size() == 1) {
             return output.get(0).toString();
@@ -40,4 +164,28 @@ public class GrpcResponse {
 
         return output.toString();
     }
+
+    /** Returns the stored form of the message at the given index, or null if it was not kept. */
+    public String getGrpcMessageString(int index) {
+        return index < output.size() ? output.get(index).toString() : null;
+    }
+
+    /** Wall-clock arrival time in milliseconds and serialized size of one received message. */
+    public static final class MessageTiming {
+        private final long arrivalTimeMillis;
+        private final int serializedSize;
+
+        MessageTiming(long arrivalTimeMillis, int serializedSize) {
+            this.arrivalTimeMillis = arrivalTimeMillis;
+            this.serializedSize = serializedSize;
+        }
+
+        public long getArrivalTimeMillis() {
+            return arrivalTimeMillis;
+        }
+
+        public int getSerializedSize() {
+            return serializedSize;
+        }
+    }
 }
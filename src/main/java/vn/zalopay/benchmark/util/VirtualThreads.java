@@ -0,0 +1,110 @@
+package vn.zalopay.benchmark.util;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on virtual threads when the JVM has them (Java 21 and later), looked up by reflection
+ * so the plugin still builds and runs on Java 8. Older JVMs, or a JVM where virtual threads are
+ * disabled, get a pool of at most {@code grpc.request.virtualUsers.platformThreads} (default 256)
+ * daemon platform threads instead; further tasks wait in the queue of the pool, so a large batch
+ * of users cannot exhaust the native threads of the process.
+ */
+public final class VirtualThreads {
+    public static final String PLATFORM_THREADS_PROPERTY =
+            "grpc.request.virtualUsers.platformThreads";
+    private static final int DEFAULT_PLATFORM_THREADS = 256;
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+    private static final String THREAD_NAME_PREFIX = "grpc-request-user-";
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY = virtualThreadFactory();
+    private static final int PLATFORM_THREADS =
+            Math.max(
+                    1,
+                    JMeterUtils.getPropDefault(
+                            PLATFORM_THREADS_PROPERTY, DEFAULT_PLATFORM_THREADS));
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private VirtualThreads() {}
+
+    /** Returns whether {@link #executor()} starts a virtual thread per task. */
+    public static boolean isAvailable() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    /**
+     * Returns how many tasks of {@link #executor()} run at once: unbounded with virtual threads,
+     * the size of the platform thread pool otherwise.
+     */
+    public static int concurrency() {
+        return isAvailable() ? Integer.MAX_VALUE : PLATFORM_THREADS;
+    }
+
+    /**
+     * Returns the process-wide executor starting one thread per task: a virtual thread if
+     * available, otherwise a thread of the bounded platform thread pool. It is never shut down.
+     */
+    public static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder =
+                    builderType
+                            .getMethod("name", String.class, long.class)
+                            .invoke(builder, THREAD_NAME_PREFIX, 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // Older than Java 21, or virtual threads are a preview feature which is not enabled
+            return null;
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        if (VIRTUAL_THREAD_FACTORY != null) {
+            try {
+                Method newExecutor =
+                        Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                LOGGER.info("[GRPC] virtual users run on virtual threads");
+                return (ExecutorService) newExecutor.invoke(null, VIRTUAL_THREAD_FACTORY);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Unable to create a virtual thread executor", e);
+            }
+        }
+        LOGGER.info(
+                "[GRPC] virtual threads are not available on Java {}, virtual users run on at"
+                        + " most {} platform threads",
+                System.getProperty("java.version"),
+                PLATFORM_THREADS);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        PLATFORM_THREADS,
+                        PLATFORM_THREADS,
+                        60,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
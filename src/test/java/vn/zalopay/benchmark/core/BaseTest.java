@@ -9,6 +9,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeSuite;
 
 import vn.zalopay.benchmark.core.config.GrpcRequestConfig;
+import vn.zalopay.benchmark.core.protobuf.DescriptorCache;
 
 import java.io.File;
 import java.io.IOException;
@@ -100,6 +101,7 @@ public class BaseTest {
         Mockito.clearAllCaches();
         if (clientCaller != null) clientCaller.shutdownNettyChannel();
         clientCaller = null;
+        DescriptorCache.clear();
     }
 
     @AfterSuite
@@ -0,0 +1,203 @@
+package vn.zalopay.benchmark.core;
+
+import com.google.common.net.HostAndPort;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+import vn.zalopay.benchmark.core.grpc.DynamicMessageMarshaller;
+import vn.zalopay.benchmark.core.protobuf.ProtocInvoker;
+import vn.zalopay.benchmark.core.protobuf.ServiceResolver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process plaintext server for every method of a service resolved from protos, so tests do not
+ * depend on the external dummy servers.
+ *
+ * <p>Replies are derived from the requests: a request of the response type is echoed, a request
+ * field of the response type is returned, and repeated response fields collect the matching
+ * request fields. Server streaming methods send the reply {@code serverStreamMessages} times, bidi
+ * methods reply to each request.
+ */
+public final class DynamicTestServer implements AutoCloseable {
+    private final Server server;
+
+    private DynamicTestServer(Server server) {
+        this.server = server;
+    }
+
+    public static DynamicTestServer start(
+            String protoFolder, String libFolder, String serviceName, int serverStreamMessages)
+            throws IOException {
+        ServiceResolver serviceResolver =
+                ServiceResolver.fromFileDescriptorSet(
+                        ProtocInvoker.forConfig(protoFolder, libFolder).invoke());
+        Descriptors.ServiceDescriptor service = null;
+        for (Descriptors.ServiceDescriptor candidate : serviceResolver.listServices()) {
+            if (candidate.getFullName().equals(serviceName)) {
+                service = candidate;
+            }
+        }
+        if (service == null) {
+            throw new IllegalArgumentException("Unknown service " + serviceName);
+        }
+        ServerServiceDefinition.Builder definition =
+                ServerServiceDefinition.builder(service.getFullName());
+        for (Descriptors.MethodDescriptor method : service.getMethods()) {
+            addMethod(definition, method, serverStreamMessages);
+        }
+        Server server = NettyServerBuilder.forPort(0).addService(definition.build()).build();
+        return new DynamicTestServer(server.start());
+    }
+
+    public String getHostPort() {
+        return HostAndPort.fromParts("localhost", server.getPort()).toString();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.shutdownNow();
+        server.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static void addMethod(
+            ServerServiceDefinition.Builder definition,
+            Descriptors.MethodDescriptor method,
+            int serverStreamMessages) {
+        Descriptors.Descriptor output = method.getOutputType();
+        MethodDescriptor<DynamicMessage, DynamicMessage> grpcMethod =
+                MethodDescriptor.<DynamicMessage, DynamicMessage>newBuilder()
+                        .setFullMethodName(
+                                MethodDescriptor.generateFullMethodName(
+                                        method.getService().getFullName(), method.getName()))
+                        .setType(methodType(method))
+                        .setRequestMarshaller(new DynamicMessageMarshaller(method.getInputType()))
+                        .setResponseMarshaller(new DynamicMessageMarshaller(output))
+                        .build();
+        if (method.isClientStreaming()) {
+            definition.addMethod(
+                    grpcMethod,
+                    method.isServerStreaming()
+                            ? ServerCalls.asyncBidiStreamingCall(
+                                    responseObserver ->
+                                            new CollectingObserver(output, responseObserver, true))
+                            : ServerCalls.asyncClientStreamingCall(
+                                    responseObserver ->
+                                            new CollectingObserver(
+                                                    output, responseObserver, false)));
+        } else if (method.isServerStreaming()) {
+            definition.addMethod(
+                    grpcMethod,
+                    ServerCalls.asyncServerStreamingCall(
+                            (request, responseObserver) -> {
+                                DynamicMessage reply =
+                                        reply(output, Collections.singletonList(request));
+                                for (int i = 0; i < serverStreamMessages; i++) {
+                                    responseObserver.onNext(reply);
+                                }
+                                responseObserver.onCompleted();
+                            }));
+        } else {
+            definition.addMethod(
+                    grpcMethod,
+                    ServerCalls.asyncUnaryCall(
+                            (request, responseObserver) -> {
+                                responseObserver.onNext(
+                                        reply(output, Collections.singletonList(request)));
+                                responseObserver.onCompleted();
+                            }));
+        }
+    }
+
+    private static MethodDescriptor.MethodType methodType(Descriptors.MethodDescriptor method) {
+        if (method.isClientStreaming()) {
+            return method.isServerStreaming()
+                    ? MethodDescriptor.MethodType.BIDI_STREAMING
+                    : MethodDescriptor.MethodType.CLIENT_STREAMING;
+        }
+        return method.isServerStreaming()
+                ? MethodDescriptor.MethodType.SERVER_STREAMING
+                : MethodDescriptor.MethodType.UNARY;
+    }
+
+    private static DynamicMessage reply(
+            Descriptors.Descriptor output, List<DynamicMessage> requests) {
+        if (requests.size() == 1 && requests.get(0).getDescriptorForType() == output) {
+            return requests.get(0);
+        }
+        DynamicMessage.Builder builder = DynamicMessage.newBuilder(output);
+        for (DynamicMessage request : requests) {
+            request.getAllFields()
+                    .forEach(
+                            (field, value) -> {
+                                if (field.getJavaType()
+                                        != Descriptors.FieldDescriptor.JavaType.MESSAGE) {
+                                    return;
+                                }
+                                if (requests.size() == 1
+                                        && field.getMessageType() == output
+                                        && !field.isRepeated()) {
+                                    builder.mergeFrom((DynamicMessage) value);
+                                    return;
+                                }
+                                for (Descriptors.FieldDescriptor target : output.getFields()) {
+                                    if (target.isRepeated()
+                                            && target.getJavaType()
+                                                    == Descriptors.FieldDescriptor.JavaType.MESSAGE
+                                            && target.getMessageType() == field.getMessageType()
+                                            && !field.isRepeated()) {
+                                        builder.addRepeatedField(target, value);
+                                    }
+                                }
+                            });
+        }
+        return builder.build();
+    }
+
+    private static final class CollectingObserver implements StreamObserver<DynamicMessage> {
+        private final Descriptors.Descriptor output;
+        private final StreamObserver<DynamicMessage> responseObserver;
+        private final boolean replyToEach;
+        private final List<DynamicMessage> requests = new ArrayList<>();
+
+        private CollectingObserver(
+                Descriptors.Descriptor output,
+                StreamObserver<DynamicMessage> responseObserver,
+                boolean replyToEach) {
+            this.output = output;
+            this.responseObserver = responseObserver;
+            this.replyToEach = replyToEach;
+        }
+
+        @Override
+        public void onNext(DynamicMessage request) {
+            if (replyToEach) {
+                responseObserver.onNext(reply(output, Collections.singletonList(request)));
+            } else {
+                requests.add(request);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {}
+
+        @Override
+        public void onCompleted() {
+            if (!replyToEach) {
+                responseObserver.onNext(reply(output, requests));
+            }
+            responseObserver.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package vn.zalopay.benchmark.core.channel;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import org.mockito.ArgumentCaptor;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.core.metrics.CallStats;
+
+import java.util.Arrays;
+
+public class FlowControlledSenderTest {
+
+    @BeforeMethod
+    @AfterMethod
+    public void resetStats() {
+        CallStats.get().stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSendsOnlyWhileStreamIsReady() {
+        ClientCallStreamObserver<String> requestStream = mock(ClientCallStreamObserver.class);
+        FlowControlledSender<String, String> sender =
+                new FlowControlledSender<>(
+                        Arrays.asList("a", "b", "c"), mock(StreamObserver.class));
+        sender.beforeStart(requestStream);
+        ArgumentCaptor<Runnable> onReady = ArgumentCaptor.forClass(Runnable.class);
+        verify(requestStream).setOnReadyHandler(onReady.capture());
+
+        // The window fits one message only.
+        when(requestStream.isReady()).thenReturn(true, false);
+        onReady.getValue().run();
+        verify(requestStream, times(1)).onNext(any());
+        verify(requestStream, never()).onCompleted();
+
+        when(requestStream.isReady()).thenReturn(true);
+        onReady.getValue().run();
+        verify(requestStream, times(3)).onNext(any());
+        verify(requestStream).onCompleted();
+        Assert.assertEquals(CallStats.get().snapshot().getFlowControlWaits(), 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStopsSendingAfterFailure() {
+        ClientCallStreamObserver<String> requestStream = mock(ClientCallStreamObserver.class);
+        StreamObserver<String> responseObserver = mock(StreamObserver.class);
+        FlowControlledSender<String, String> sender =
+                new FlowControlledSender<>(Arrays.asList("a", "b"), responseObserver);
+        sender.beforeStart(requestStream);
+        ArgumentCaptor<Runnable> onReady = ArgumentCaptor.forClass(Runnable.class);
+        verify(requestStream).setOnReadyHandler(onReady.capture());
+
+        RuntimeException failure = new RuntimeException("closed");
+        sender.onError(failure);
+        when(requestStream.isReady()).thenReturn(true);
+        onReady.getValue().run();
+        verify(requestStream, never()).onNext(any());
+        verify(responseObserver).onError(failure);
+    }
+}
@@ -0,0 +1,49 @@
+package vn.zalopay.benchmark.core.channel;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ThreadlessExecutorTest {
+
+    @Test
+    public void testRunsCallbacksOnWaitingThread() throws Exception {
+        ThreadlessExecutor executor = new ThreadlessExecutor();
+        SettableFuture<String> future = SettableFuture.create();
+        AtomicReference<Thread> callbackThread = new AtomicReference<>();
+        Thread transport =
+                new Thread(
+                        () ->
+                                executor.execute(
+                                        () -> {
+                                            callbackThread.set(Thread.currentThread());
+                                            future.set("done");
+                                        }));
+        transport.start();
+
+        Assert.assertEquals(executor.waitAndDrain(future), "done");
+        Assert.assertSame(callbackThread.get(), Thread.currentThread());
+        transport.join();
+    }
+
+    @Test
+    public void testRunsLateCallbacksOnSubmittingThread() throws Exception {
+        ThreadlessExecutor executor = new ThreadlessExecutor();
+        SettableFuture<String> future = SettableFuture.create();
+        future.setException(new IllegalStateException("failed"));
+        try {
+            executor.waitAndDrain(future);
+            Assert.fail("Expected the failure of the future");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        AtomicReference<Thread> callbackThread = new AtomicReference<>();
+        executor.execute(() -> callbackThread.set(Thread.currentThread()));
+        Assert.assertSame(callbackThread.get(), Thread.currentThread());
+    }
+}
@@ -6,8 +6,10 @@ import static org.mockito.Mockito.mockConstructionWithAnswer;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.util.JsonFormat;
 
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 
+import org.apache.jmeter.util.JMeterUtils;
 import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -16,19 +18,35 @@ import org.testng.annotations.Test;
 
 import vn.zalopay.benchmark.core.BaseTest;
 import vn.zalopay.benchmark.core.ClientCaller;
+import vn.zalopay.benchmark.core.DynamicTestServer;
 import vn.zalopay.benchmark.core.config.GrpcRequestConfig;
+import vn.zalopay.benchmark.core.metrics.BackendStats;
+import vn.zalopay.benchmark.core.metrics.CallStats;
 import vn.zalopay.benchmark.core.protobuf.ProtocInvoker;
+import vn.zalopay.benchmark.core.specification.AsyncCallResult;
+import vn.zalopay.benchmark.core.specification.CallTimings;
 import vn.zalopay.benchmark.core.specification.GrpcResponse;
 
 import java.io.UnsupportedEncodingException;
+import java.net.ServerSocket;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLException;
 
 public class ClientCallerTest extends BaseTest {
+    private static final String RETRY_SERVICE_CONFIG =
+            "{\"methodConfig\": [{\"name\": [{\"service\": \"bookstore.Bookstore\"}],"
+                    + " \"retryPolicy\": {\"maxAttempts\": 3, \"initialBackoff\": \"0.01s\","
+                    + " \"maxBackoff\": \"0.05s\", \"backoffMultiplier\": 2,"
+                    + " \"retryableStatusCodes\": [\"UNAVAILABLE\"]}}]}";
     static int countMockFailedALPN = 0;
 
     @Test
@@ -41,6 +59,572 @@ public class ClientCallerTest extends BaseTest {
         Assert.assertTrue(resp.getGrpcMessageString().contains("\"theme\": \"Hello server"));
     }
 
+    @Test
+    public void testCanReuseRequestWhenPayloadIsUnchanged() {
+        clientCaller =
+                new ClientCaller(
+                        GrpcRequestConfig.builder()
+                                .hostPort(HOST_PORT)
+                                .protoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString())
+                                .libFolder(LIB_FOLDER.toString())
+                                .fullMethod(FULL_METHOD)
+                                .build());
+        String first = clientCaller.buildRequestAndMetadata(REQUEST_JSON, "key1:1");
+        String second = clientCaller.buildRequestAndMetadata(REQUEST_JSON, "key1:1");
+        Assert.assertSame(second, first);
+        Assert.assertEquals(clientCaller.getMetadataString(), "key1: 1");
+
+        String changed =
+                clientCaller.buildRequestAndMetadata(
+                        REQUEST_JSON.replace("Hello server!!", "Changed"), "key2:2");
+        Assert.assertTrue(changed.contains("Changed"));
+        Assert.assertEquals(clientCaller.getMetadataString(), "key2: 2");
+    }
+
+    @Test
+    public void testCanSendAsyncCallsWithInFlightLimit() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            clientCaller = new ClientCaller(testServerConfig(server, FULL_METHOD));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            List<AsyncCallResult> results = clientCaller.callAsync("2000", 20, 0, 4);
+            // The batch returns without waiting for its last calls, which are collected here
+            results.addAll(clientCaller.awaitAsyncCalls(2000));
+            Assert.assertEquals(results.size(), 20);
+            results.forEach(
+                    result -> {
+                        Assert.assertTrue(
+                                result.getResponse().isSuccess(),
+                                String.valueOf(result.getResponse().getThrowable()));
+                        Assert.assertTrue(
+                                result.getResponse()
+                                        .getGrpcMessageString()
+                                        .contains("\"theme\": \"Hello server"));
+                        Assert.assertTrue(result.getEndTime() >= result.getStartTime());
+                    });
+        }
+    }
+
+    @Test
+    public void testCanPaceAsyncCallsAtTargetRate() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            clientCaller = new ClientCaller(testServerConfig(server, FULL_METHOD));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            long start = System.nanoTime();
+            List<AsyncCallResult> results = clientCaller.callAsync("2000", 5, 20, 10);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            results.addAll(clientCaller.awaitAsyncCalls(2000));
+            Assert.assertEquals(results.size(), 5);
+            // Five calls at 20 calls/s start 50 ms apart, so the last one starts after 200 ms.
+            Assert.assertTrue(elapsedMillis >= 200, "Elapsed: " + elapsedMillis);
+        }
+    }
+
+    @Test
+    public void testCanKeepAsyncScheduleAcrossBatches() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            clientCaller = new ClientCaller(testServerConfig(server, FULL_METHOD));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            long start = System.nanoTime();
+            List<AsyncCallResult> results = clientCaller.callAsync("2000", 3, 20, 10);
+            results.addAll(clientCaller.callAsync("2000", 3, 20, 10));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            results.addAll(clientCaller.awaitAsyncCalls(2000));
+            Assert.assertEquals(results.size(), 6);
+            // Six calls at 20 calls/s on one schedule: the sixth starts 250 ms after the first
+            Assert.assertTrue(elapsedMillis >= 250, "Elapsed: " + elapsedMillis);
+            Assert.assertTrue(elapsedMillis < 1000, "Elapsed: " + elapsedMillis);
+        }
+    }
+
+    @Test
+    public void testCanReportServerStreamingFailure() throws Exception {
+        DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1);
+        GrpcRequestConfig config =
+                testServerConfig(server, "bookstore.Bookstore/GetShelfStreamServer");
+        server.close();
+        clientCaller = new ClientCaller(config);
+        clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+        GrpcResponse response = clientCaller.callServerStreaming("2000", true);
+        Assert.assertFalse(response.isSuccess());
+        Assert.assertTrue(response.getThrowable() instanceof StatusRuntimeException);
+        Assert.assertEquals(response.getMessageCount(), 0);
+    }
+
+    @Test
+    public void testCanReuseBidiSessionAcrossCalls() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            clientCaller =
+                    new ClientCaller(
+                            testServerConfig(server, "bookstore.Bookstore/GetShelfStreamBidi"));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            for (int i = 0; i < 3; i++) {
+                GrpcResponse response = clientCaller.callBidiSession("2000", "");
+                Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+                Assert.assertTrue(response.getGrpcMessageString().contains("Hello server"));
+            }
+        }
+    }
+
+    @Test
+    public void testCanRenderBidiSessionResponsesOnWaitingThread() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            JMeterUtils.setProperty(ClientCaller.CALL_EXECUTOR_PROPERTY, "threadless");
+            clientCaller =
+                    new ClientCaller(
+                            testServerConfig(server, "bookstore.Bookstore/GetShelfStreamBidi"));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            for (int i = 0; i < 3; i++) {
+                GrpcResponse response = clientCaller.callBidiSession("2000", "");
+                Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+                Assert.assertTrue(response.getGrpcMessageString().contains("Hello server"));
+                Assert.assertEquals(response.getTimings().getAttempts(), 1);
+                Assert.assertTrue(response.getTimings().getRenderNanos() > 0);
+            }
+        } finally {
+            JMeterUtils.setProperty(ClientCaller.CALL_EXECUTOR_PROPERTY, "");
+        }
+    }
+
+    @Test
+    public void testCanCorrelateBidiSessionResponses() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            clientCaller =
+                    new ClientCaller(
+                            testServerConfig(server, "bookstore.Bookstore/GetShelfStreamBidi"));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            GrpcResponse response = clientCaller.callBidiSession("2000", "shelf.id=id");
+            Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+            Assert.assertTrue(response.getGrpcMessageString().contains("1599156420811"));
+
+            // The theme never equals the response id, so the response is dropped.
+            clientCaller.shutdownNettyChannel();
+            clientCaller =
+                    new ClientCaller(
+                            testServerConfig(server, "bookstore.Bookstore/GetShelfStreamBidi"));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            response = clientCaller.callBidiSession("300", "shelf.theme=id");
+            Assert.assertFalse(response.isSuccess());
+            Assert.assertEquals(response.getStatusCode(), Status.Code.DEADLINE_EXCEEDED);
+        }
+    }
+
+    @Test
+    public void testCanStreamRepeatedRequestAtMessageRate() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            clientCaller =
+                    new ClientCaller(
+                            testServerConfig(server, "bookstore.Bookstore/GetShelfStreamClient"));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            long start = System.nanoTime();
+            GrpcResponse response = clientCaller.callClientStreaming("2000", 5, 50, "");
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+            Assert.assertEquals(response.getSentMessageCount(), 5);
+            Assert.assertTrue(response.getSentBytes() > 0);
+            // The server replies with one shelf per received message.
+            Assert.assertEquals(
+                    response.getGrpcMessageString().split("Hello server").length - 1, 5);
+            // Five messages at 50 messages/s are sent 20 ms apart, so the last one after 80 ms.
+            Assert.assertTrue(elapsedMillis >= 80, "Elapsed: " + elapsedMillis);
+        }
+    }
+
+    @Test
+    public void testCanStreamMessagesFromJsonLinesFile() throws Exception {
+        Path file = Files.createTempFile("client-stream", ".jsonl");
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            Files.write(
+                    file,
+                    Arrays.asList(
+                            "{\"shelf\":{\"id\":1,\"theme\":\"first\"}}",
+                            "",
+                            "{\"shelf\":{\"id\":2,\"theme\":\"second\"}}"),
+                    StandardCharsets.UTF_8);
+            clientCaller =
+                    new ClientCaller(
+                            testServerConfig(server, "bookstore.Bookstore/GetShelfStreamClient"));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+
+            GrpcResponse onePass = clientCaller.callClientStreaming("2000", 0, 0, file.toString());
+            Assert.assertTrue(onePass.isSuccess(), String.valueOf(onePass.getThrowable()));
+            Assert.assertEquals(onePass.getSentMessageCount(), 2);
+
+            GrpcResponse cycled = clientCaller.callClientStreaming("2000", 3, 0, file.toString());
+            Assert.assertTrue(cycled.isSuccess(), String.valueOf(cycled.getThrowable()));
+            Assert.assertEquals(cycled.getSentMessageCount(), 3);
+            Assert.assertEquals(cycled.getGrpcMessageString().split("first").length - 1, 2);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testCanCallStreamingMethodsWithFlowControl() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            clientCaller =
+                    new ClientCaller(
+                            testServerConfig(server, "bookstore.Bookstore/GetShelfStreamClient"));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            GrpcResponse response = clientCaller.callClientStreaming("2000");
+            Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+            Assert.assertTrue(response.getGrpcMessageString().contains("Hello server"));
+            clientCaller.shutdownNettyChannel();
+
+            clientCaller =
+                    new ClientCaller(
+                            testServerConfig(server, "bookstore.Bookstore/GetShelfStreamBidi"));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            response = clientCaller.callBidiStreaming("2000");
+            Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+            Assert.assertTrue(response.getGrpcMessageString().contains("Hello server"));
+        }
+    }
+
+    @Test
+    public void testCanReportCallPhaseTimings() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            clientCaller = new ClientCaller(testServerConfig(server, FULL_METHOD));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            GrpcResponse response = clientCaller.call("2000");
+            Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+            CallTimings timings = response.getTimings();
+            Assert.assertTrue(timings.getEncodeNanos() >= 0);
+            Assert.assertTrue(timings.getQueueNanos() >= 0);
+            Assert.assertTrue(timings.getResponseHeadersNanos() >= timings.getQueueNanos());
+            Assert.assertTrue(timings.getLastByteNanos() >= timings.getResponseHeadersNanos());
+            Assert.assertTrue(timings.getDecodeNanos() > 0);
+            Assert.assertTrue(timings.getRenderNanos() > 0);
+        }
+    }
+
+    @Test
+    public void testKeepsChannelAfterFailedCall() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        clientCaller =
+                new ClientCaller(
+                        GrpcRequestConfig.builder()
+                                .hostPort("localhost:" + port)
+                                .protoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString())
+                                .libFolder(LIB_FOLDER.toString())
+                                .fullMethod(FULL_METHOD)
+                                .build());
+        clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+        GrpcResponse response = clientCaller.call("1000");
+        Assert.assertFalse(response.isSuccess());
+        Assert.assertEquals(response.getStatusCode(), Status.Code.UNAVAILABLE);
+        Assert.assertFalse(clientCaller.isShutdown());
+    }
+
+    @Test
+    public void testCanRetryWithServiceConfig() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        clientCaller =
+                new ClientCaller(
+                        GrpcRequestConfig.builder()
+                                .hostPort("localhost:" + port)
+                                .protoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString())
+                                .libFolder(LIB_FOLDER.toString())
+                                .fullMethod(FULL_METHOD)
+                                .serviceConfig(RETRY_SERVICE_CONFIG)
+                                .build());
+        clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+        GrpcResponse response = clientCaller.call("5000");
+        Assert.assertEquals(response.getStatusCode(), Status.Code.UNAVAILABLE);
+        Assert.assertEquals(response.getTimings().getAttempts(), 3);
+    }
+
+    @Test
+    public void testCanCallWithServiceConfig() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            GrpcRequestConfig config = testServerConfig(server, FULL_METHOD);
+            config.setServiceConfig(RETRY_SERVICE_CONFIG);
+            clientCaller = new ClientCaller(config);
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            GrpcResponse response = clientCaller.call("2000");
+            Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+            Assert.assertEquals(response.getTimings().getAttempts(), 1);
+        }
+    }
+
+    @Test
+    public void testCanRebuildShutdownChannelOnNextCall() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            CallStats.get().stop();
+            clientCaller = new ClientCaller(testServerConfig(server, FULL_METHOD));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            Assert.assertTrue(clientCaller.call("2000").isSuccess());
+            clientCaller.shutdownNettyChannel();
+            Assert.assertTrue(clientCaller.isShutdown());
+
+            GrpcResponse response = clientCaller.call("2000");
+            Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+            Assert.assertFalse(clientCaller.isShutdown());
+            Assert.assertEquals(CallStats.get().snapshot().getChannelRebuilds(), 1);
+            CallStats.get().stop();
+        }
+    }
+
+    @Test
+    public void testCanKeepChannelAfterInvalidRequest() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            CallStats.get().stop();
+            clientCaller = new ClientCaller(testServerConfig(server, FULL_METHOD));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            Assert.assertTrue(clientCaller.call("2000").isSuccess());
+            Assert.expectThrows(
+                    RuntimeException.class,
+                    () -> clientCaller.buildRequestAndMetadata("{shelf:{\"id\":.}}", ""));
+            Assert.expectThrows(
+                    IllegalArgumentException.class,
+                    () -> clientCaller.buildRequestAndMetadata(REQUEST_JSON, "key1=1"));
+            Assert.assertFalse(clientCaller.isShutdown());
+
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            GrpcResponse response = clientCaller.call("2000");
+            Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+            Assert.assertEquals(CallStats.get().snapshot().getChannelRebuilds(), 0);
+            CallStats.get().stop();
+        }
+    }
+
+    @Test
+    public void testCanRunCallbacksWithoutChannelExecutor() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            for (String callExecutor : Arrays.asList("direct", "threadless")) {
+                JMeterUtils.setProperty(ClientCaller.CALL_EXECUTOR_PROPERTY, callExecutor);
+                clientCaller = new ClientCaller(testServerConfig(server, FULL_METHOD));
+                clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+                for (int i = 0; i < 3; i++) {
+                    GrpcResponse response = clientCaller.call("2000");
+                    Assert.assertTrue(response.isSuccess(), callExecutor);
+                    Assert.assertTrue(
+                            response.getGrpcMessageString().contains("Hello server"),
+                            callExecutor);
+                }
+                clientCaller.shutdownNettyChannel();
+
+                clientCaller =
+                        new ClientCaller(
+                                testServerConfig(
+                                        server, "bookstore.Bookstore/GetShelfStreamServer"));
+                clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+                GrpcResponse stream = clientCaller.callServerStreaming("2000", true);
+                Assert.assertTrue(stream.isSuccess(), callExecutor);
+                Assert.assertTrue(stream.getMessageCount() > 0, callExecutor);
+                clientCaller.shutdownNettyChannel();
+            }
+        } finally {
+            JMeterUtils.setProperty(ClientCaller.CALL_EXECUTOR_PROPERTY, "");
+        }
+    }
+
+    @Test
+    public void testCanReportFailureWithThreadlessExecutor() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            JMeterUtils.setProperty(ClientCaller.CALL_EXECUTOR_PROPERTY, "threadless");
+            clientCaller =
+                    new ClientCaller(
+                            GrpcRequestConfig.builder()
+                                    .hostPort("localhost:" + socket.getLocalPort())
+                                    .protoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString())
+                                    .libFolder(LIB_FOLDER.toString())
+                                    .fullMethod(FULL_METHOD)
+                                    .build());
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            // The socket accepts connections but never speaks HTTP/2, so only the deadline ends it
+            GrpcResponse response = clientCaller.call("300");
+            Assert.assertFalse(response.isSuccess());
+            Assert.assertEquals(response.getStatusCode(), Status.Code.DEADLINE_EXCEEDED);
+        } finally {
+            JMeterUtils.setProperty(ClientCaller.CALL_EXECUTOR_PROPERTY, "");
+        }
+    }
+
+    @Test
+    public void testCanWarmUpChannelWithoutRecordingCalls() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            clientCaller = new ClientCaller(testServerConfig(server, FULL_METHOD));
+            long started = CallStats.get().snapshot().getStarted();
+            // Connecting needs no request
+            Assert.assertTrue(clientCaller.awaitReady(2000));
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            Assert.assertEquals(clientCaller.warmUpCalls(3, "2000"), 0);
+            Assert.assertEquals(CallStats.get().snapshot().getStarted(), started);
+            Assert.assertTrue(clientCaller.call("2000").isSuccess());
+        }
+    }
+
+    @Test
+    public void testCanReportChannelNotReadyAfterWarmUpTimeout() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            clientCaller =
+                    new ClientCaller(
+                            GrpcRequestConfig.builder()
+                                    .hostPort("localhost:" + socket.getLocalPort())
+                                    .protoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString())
+                                    .libFolder(LIB_FOLDER.toString())
+                                    .fullMethod(FULL_METHOD)
+                                    .build());
+            // The socket accepts connections but never speaks HTTP/2
+            Assert.assertFalse(clientCaller.awaitReady(300));
+        }
+    }
+
+    @Test
+    public void testCanBalanceCallsOverBackendTargets() throws Exception {
+        try (DynamicTestServer first =
+                        DynamicTestServer.start(
+                                PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                                LIB_FOLDER.toString(),
+                                "bookstore.Bookstore",
+                                1);
+                DynamicTestServer second =
+                        DynamicTestServer.start(
+                                PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                                LIB_FOLDER.toString(),
+                                "bookstore.Bookstore",
+                                1)) {
+            BackendStats.get().stop();
+            GrpcRequestConfig config = testServerConfig(first, FULL_METHOD);
+            config.setTargets(first.getHostPort() + ", " + second.getHostPort());
+            clientCaller = new ClientCaller(config);
+            clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+            Assert.assertTrue(clientCaller.call("2000").isSuccess());
+            // Round robin only picks ready backends; let the second one connect
+            TimeUnit.MILLISECONDS.sleep(200);
+            for (int i = 0; i < 10; i++) {
+                GrpcResponse response = clientCaller.call("2000");
+                Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+                Assert.assertNotNull(response.getTimings().getBackend());
+            }
+
+            Map<String, BackendStats.Snapshot> backends = BackendStats.get().snapshot();
+            Assert.assertEquals(backends.size(), 2, backends.toString());
+            long calls = 0;
+            for (BackendStats.Snapshot totals : backends.values()) {
+                Assert.assertTrue(totals.getCalls() >= 4, backends.toString());
+                calls += totals.getCalls();
+            }
+            Assert.assertEquals(calls, 11);
+            BackendStats.get().stop();
+        }
+    }
+
+    @Test
+    public void testCanReportUnresolvableBackendTargets() {
+        GrpcRequestConfig config =
+                GrpcRequestConfig.builder()
+                        .hostPort("backend-one.invalid:50051")
+                        .targets("backend-one.invalid:50051, backend-two.invalid:50051")
+                        .protoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString())
+                        .libFolder(LIB_FOLDER.toString())
+                        .fullMethod(FULL_METHOD)
+                        .build();
+        clientCaller = new ClientCaller(config);
+        clientCaller.buildRequestAndMetadata(REQUEST_JSON, "");
+        GrpcResponse response = clientCaller.call("2000");
+        Assert.assertFalse(response.isSuccess());
+        Assert.assertEquals(response.getStatusCode(), Status.Code.UNAVAILABLE);
+        Assert.assertTrue(
+                String.valueOf(response.getThrowable()).contains("Unable to resolve"),
+                String.valueOf(response.getThrowable()));
+    }
+
+    private static GrpcRequestConfig testServerConfig(DynamicTestServer server, String method) {
+        return GrpcRequestConfig.builder()
+                .hostPort(server.getHostPort())
+                .protoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString())
+                .libFolder(LIB_FOLDER.toString())
+                .fullMethod(method)
+                .build();
+    }
+
     @Test
     public void testCanGetShutDownBoolean() {
         clientCaller = new ClientCaller(DEFAULT_GRPC_REQUEST_CONFIG);
@@ -17,7 +17,9 @@ public class GrpcRequestConfigTest {
                 "GrpcRequestConfig{maxInboundMessageSize=4194304, maxInboundMetadataSize=8192,"
                     + " hostPort='a', testProtoFile='b', libFolder='c', fullMethod='d', tls=true,"
                     + " caPemPath='null', clientCertPemPath='null', clientKeyPemPath='null',"
-                    + " protoContent=null, libContentZipBase64=null, awaitTerminationTimeout=1000}");
+                    + " protoContent=null, libContentZipBase64=null, awaitTerminationTimeout=1000,"
+                    + " channelsPerTarget=0, responseMode=null, serviceConfig='null',"
+                    + " targets='null', loadBalancingPolicy=null}");
     }
 
     @Test
@@ -115,7 +117,9 @@ public class GrpcRequestConfigTest {
                 "GrpcRequestConfig{maxInboundMessageSize=1000, maxInboundMetadataSize=1000,"
                     + " hostPort='a', testProtoFile='b', libFolder='c', fullMethod='d', tls=true,"
                     + " caPemPath='null', clientCertPemPath='null', clientKeyPemPath='null',"
-                    + " protoContent=null, libContentZipBase64=null, awaitTerminationTimeout=1000}");
+                    + " protoContent=null, libContentZipBase64=null, awaitTerminationTimeout=1000,"
+                    + " channelsPerTarget=0, responseMode=null, serviceConfig='null',"
+                    + " targets='null', loadBalancingPolicy=null}");
     }
 
     @Test
@@ -128,7 +132,9 @@ public class GrpcRequestConfigTest {
                 "GrpcRequestConfig{maxInboundMessageSize=4194304, maxInboundMetadataSize=8192,"
                     + " hostPort='null', testProtoFile='null', libFolder='null', fullMethod='null',"
                     + " tls=false, caPemPath='null', clientCertPemPath='null', clientKeyPemPath='null',"
-                    + " protoContent=null, libContentZipBase64=null, awaitTerminationTimeout=5000}");
+                    + " protoContent=null, libContentZipBase64=null, awaitTerminationTimeout=5000,"
+                    + " channelsPerTarget=0, responseMode=null, serviceConfig='null',"
+                    + " targets='null', loadBalancingPolicy=null}");
     }
 
     @Test
@@ -157,7 +163,9 @@ public class GrpcRequestConfigTest {
                 "GrpcRequestConfig{maxInboundMessageSize=1000, maxInboundMetadataSize=1000,"
                     + " hostPort='a', testProtoFile='b', libFolder='c', fullMethod='d', tls=true,"
                     + " caPemPath='null', clientCertPemPath='null', clientKeyPemPath='null',"
-                    + " protoContent=null, libContentZipBase64=null, awaitTerminationTimeout=1000}");
+                    + " protoContent=null, libContentZipBase64=null, awaitTerminationTimeout=1000,"
+                    + " channelsPerTarget=0, responseMode=null, serviceConfig='null',"
+                    + " targets='null', loadBalancingPolicy=null}");
         Assert.assertTrue(grpcRequestConfig.hashCode() != 0);
         Assert.assertTrue(
                 GrpcRequestConfig.builder()
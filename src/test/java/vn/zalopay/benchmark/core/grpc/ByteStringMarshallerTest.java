@@ -0,0 +1,49 @@
+package vn.zalopay.benchmark.core.grpc;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class ByteStringMarshallerTest {
+    private static final ByteString PAYLOAD =
+            ByteString.copyFrom("pre-serialized payload", StandardCharsets.UTF_8);
+
+    @Test
+    public void canDrainSerializedBytesWithKnownLength() throws IOException {
+        InputStream stream = new ByteStringMarshaller().stream(PAYLOAD);
+        Assert.assertTrue(stream instanceof KnownLength);
+        Assert.assertEquals(stream.available(), PAYLOAD.size());
+
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        Assert.assertEquals(((Drainable) stream).drainTo(target), PAYLOAD.size());
+        Assert.assertEquals(target.toByteArray(), PAYLOAD.toByteArray());
+        Assert.assertEquals(stream.available(), 0);
+        Assert.assertEquals(stream.read(), -1);
+    }
+
+    @Test
+    public void canReadStreamAfterPartialRead() throws IOException {
+        InputStream stream = new ByteStringMarshaller().stream(PAYLOAD);
+        Assert.assertEquals(stream.read(), 'p');
+        byte[] rest = new byte[PAYLOAD.size()];
+        int count = stream.read(rest, 0, rest.length);
+        Assert.assertEquals(count, PAYLOAD.size() - 1);
+        Assert.assertEquals(
+                new String(rest, 0, count, StandardCharsets.UTF_8), "re-serialized payload");
+    }
+
+    @Test
+    public void canParseStreamBackToBytes() {
+        ByteStringMarshaller marshaller = new ByteStringMarshaller();
+        Assert.assertEquals(marshaller.parse(marshaller.stream(PAYLOAD)), PAYLOAD);
+    }
+}
@@ -0,0 +1,150 @@
+package vn.zalopay.benchmark.core.grpc;
+
+import com.google.common.net.HostAndPort;
+
+import io.grpc.ManagedChannel;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.core.config.ChannelOptions;
+import vn.zalopay.benchmark.core.config.GrpcSecurityConfig;
+import vn.zalopay.benchmark.core.config.LoadBalancingPolicy;
+import vn.zalopay.benchmark.exception.GrpcPluginException;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class ChannelFactoryTest {
+    private static final HostAndPort ENDPOINT = HostAndPort.fromString("localhost:8005");
+    private static final GrpcSecurityConfig PLAINTEXT =
+            GrpcSecurityConfig.builder().tls(false).build();
+    private static final String SERVICE_CONFIG =
+            "{\"methodConfig\": [{\"name\": [{\"service\": \"bookstore.Bookstore\"}],"
+                    + " \"timeout\": \"1s\"}],"
+                    + " \"retryThrottling\": {\"maxTokens\": 10, \"tokenRatio\": 0.1}}";
+
+    @AfterMethod
+    public void closeSharedChannels() {
+        ChannelFactory.shutdownSharedChannels(1000);
+    }
+
+    @Test
+    public void canSpreadThreadsAcrossSharedChannels() {
+        ChannelFactory factory = ChannelFactory.create();
+        ManagedChannel first = factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 4194304, 8192, 2);
+        ManagedChannel second = factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 4194304, 8192, 2);
+        ManagedChannel third = factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 4194304, 8192, 2);
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(first, third);
+    }
+
+    @Test
+    public void canSeparateSharedChannelsByMessageSizeLimits() {
+        ChannelFactory factory = ChannelFactory.create();
+        ManagedChannel defaultLimits =
+                factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 4194304, 8192, 1);
+        ManagedChannel largeMessages =
+                factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 16777216, 8192, 1);
+        Assert.assertNotSame(defaultLimits, largeMessages);
+    }
+
+    @Test
+    public void canSeparateSharedChannelsByServiceConfig() {
+        ChannelFactory factory = ChannelFactory.create();
+        ManagedChannel plain = factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 4194304, 8192, 1);
+        ChannelOptions options = ChannelOptions.builder().serviceConfig(SERVICE_CONFIG).build();
+        ManagedChannel retrying = factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, options, 1);
+        Assert.assertNotSame(plain, retrying);
+        Assert.assertSame(factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, options, 1), retrying);
+    }
+
+    @Test
+    public void canSeparateSharedChannelsByBackendTargets() {
+        ChannelFactory factory = ChannelFactory.create();
+        ChannelOptions balanced =
+                ChannelOptions.builder().targets("localhost:8005,localhost:8006").build();
+        ManagedChannel roundRobin = factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, balanced, 1);
+        Assert.assertNotSame(
+                factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 4194304, 8192, 1), roundRobin);
+        Assert.assertNotSame(
+                factory.acquireSharedChannel(
+                        ENDPOINT,
+                        PLAINTEXT,
+                        ChannelOptions.builder()
+                                .targets("localhost:8005,localhost:8006")
+                                .loadBalancingPolicy(LoadBalancingPolicy.PICK_FIRST)
+                                .build(),
+                        1),
+                roundRobin);
+        Assert.assertEquals(roundRobin.authority(), "localhost:8005");
+    }
+
+    @Test
+    public void canParseBackendTargets() {
+        String targets = " localhost:8005, 10.0.0.2:8006\n[::1]:8007 ";
+        Assert.assertEquals(
+                ChannelTargets.parse(targets),
+                Arrays.asList(
+                        HostAndPort.fromParts("localhost", 8005),
+                        HostAndPort.fromParts("10.0.0.2", 8006),
+                        HostAndPort.fromParts("::1", 8007)));
+        Assert.assertEquals(ChannelTargets.authority(targets), "localhost:8005");
+        Assert.assertEquals(ChannelTargets.authority("dns:///bookstore:8080"), "bookstore:8080");
+        Assert.assertEquals(
+                ChannelTargets.fromChannelTarget(
+                        URI.create(ChannelTargets.channelTarget(targets))),
+                targets.trim());
+        Assert.assertEquals(
+                ChannelTargets.channelTarget("dns:///bookstore:8080"), "dns:///bookstore:8080");
+    }
+
+    @Test(expectedExceptions = GrpcPluginException.class)
+    public void cannotParseBackendTargetWithoutPort() {
+        ChannelTargets.parse("localhost:8005,localhost");
+    }
+
+    @Test
+    public void canReadServiceConfigInlineOrFromFile() throws Exception {
+        Map<String, ?> inline = ServiceConfigs.parse(SERVICE_CONFIG);
+        Map<?, ?> throttling = (Map<?, ?>) inline.get("retryThrottling");
+        Assert.assertEquals(throttling.get("maxTokens"), 10.0);
+        Assert.assertEquals(throttling.get("tokenRatio"), 0.1);
+        List<?> methodConfig = (List<?>) inline.get("methodConfig");
+        Assert.assertEquals(((Map<?, ?>) methodConfig.get(0)).get("timeout"), "1s");
+
+        Path file = Files.createTempFile("service-config", ".json");
+        try {
+            Files.write(file, SERVICE_CONFIG.getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(ServiceConfigs.parse(file.toString()), inline);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(expectedExceptions = GrpcPluginException.class)
+    public void cannotReadServiceConfigWhichIsNotAnObject() {
+        ServiceConfigs.parse("[1, 2]");
+    }
+
+    @Test
+    public void canKeepSharedChannelOpenUntilTestEnd() {
+        ChannelFactory factory = ChannelFactory.create();
+        ManagedChannel channel = factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 4194304, 8192, 1);
+        factory.releaseSharedChannel(channel);
+        Assert.assertFalse(channel.isShutdown());
+        Assert.assertSame(
+                factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 4194304, 8192, 1), channel);
+
+        ChannelFactory.shutdownSharedChannels(1000);
+        Assert.assertTrue(channel.isShutdown());
+        Assert.assertNotSame(
+                factory.acquireSharedChannel(ENDPOINT, PLAINTEXT, 4194304, 8192, 1), channel);
+    }
+}
@@ -0,0 +1,50 @@
+package vn.zalopay.benchmark.core.grpc;
+
+import com.google.protobuf.Descriptors;
+
+import io.grpc.MethodDescriptor.MethodType;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.core.BaseTest;
+import vn.zalopay.benchmark.core.protobuf.DescriptorCache;
+import vn.zalopay.benchmark.core.protobuf.ProtoMethodName;
+import vn.zalopay.benchmark.core.protobuf.ServiceResolver;
+
+public class DynamicGrpcClientTest extends BaseTest {
+
+    private Descriptors.MethodDescriptor resolve(String fullMethod) {
+        ServiceResolver serviceResolver =
+                DescriptorCache.forConfig(
+                                PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(), LIB_FOLDER.toString())
+                        .getServiceResolver();
+        return serviceResolver.resolveServiceMethod(
+                ProtoMethodName.parseFullGrpcMethodName(fullMethod));
+    }
+
+    @Test
+    public void canShareGrpcMethodDescriptorBetweenClients() {
+        Descriptors.MethodDescriptor method = resolve(FULL_METHOD);
+        DynamicGrpcClient first = DynamicGrpcClient.create(method, null);
+        DynamicGrpcClient second = DynamicGrpcClient.create(method, null);
+        Assert.assertSame(first.getGrpcMethodDescriptor(), second.getGrpcMethodDescriptor());
+        Assert.assertEquals(
+                first.getGrpcMethodDescriptor().getFullMethodName(), FULL_METHOD);
+        Assert.assertEquals(first.getGrpcMethodDescriptor().getType(), MethodType.UNARY);
+    }
+
+    @Test
+    public void canMapStreamingMethodTypes() {
+        Assert.assertEquals(
+                DynamicGrpcClient.create(resolve("bookstore.Bookstore/GetShelfStreamServer"), null)
+                        .getGrpcMethodDescriptor()
+                        .getType(),
+                MethodType.SERVER_STREAMING);
+        Assert.assertEquals(
+                DynamicGrpcClient.create(resolve("bookstore.Bookstore/GetShelfStreamClient"), null)
+                        .getGrpcMethodDescriptor()
+                        .getType(),
+                MethodType.CLIENT_STREAMING);
+    }
+}
@@ -0,0 +1,90 @@
+package vn.zalopay.benchmark.core.grpc;
+
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.core.BaseTest;
+import vn.zalopay.benchmark.core.ClientCaller;
+import vn.zalopay.benchmark.core.DynamicTestServer;
+import vn.zalopay.benchmark.core.config.GrpcRequestConfig;
+import vn.zalopay.benchmark.core.specification.GrpcResponse;
+
+public class EventLoopsTest extends BaseTest {
+
+    @BeforeMethod
+    @AfterMethod
+    public void resetEventLoops() {
+        ChannelFactory.shutdownSharedChannels(1000);
+        EventLoops.shutdown();
+        JMeterUtils.setProperty(EventLoops.TRANSPORT_PROPERTY, "auto");
+        JMeterUtils.setProperty(EventLoops.EVENT_LOOP_THREADS_PROPERTY, "0");
+        JMeterUtils.setProperty(EventLoops.EXECUTOR_THREADS_PROPERTY, "0");
+    }
+
+    @Test
+    public void testKeepsGrpcDefaultsWithoutSettings() throws Exception {
+        Assert.assertTrue(callTestServer().isSuccess());
+        Assert.assertNull(EventLoops.eventLoopGroup());
+    }
+
+    @Test
+    public void testCanShareSizedNioEventLoopGroupAndExecutor() throws Exception {
+        JMeterUtils.setProperty(EventLoops.TRANSPORT_PROPERTY, "nio");
+        JMeterUtils.setProperty(EventLoops.EVENT_LOOP_THREADS_PROPERTY, "1");
+        JMeterUtils.setProperty(EventLoops.EXECUTOR_THREADS_PROPERTY, "2");
+        GrpcResponse response = callTestServer();
+        Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+
+        EventLoopGroup group = EventLoops.eventLoopGroup();
+        Assert.assertTrue(group instanceof NioEventLoopGroup);
+        Assert.assertEquals(((NioEventLoopGroup) group).executorCount(), 1);
+
+        EventLoops.shutdown();
+        Assert.assertTrue(group.isShuttingDown());
+        Assert.assertNull(EventLoops.eventLoopGroup());
+    }
+
+    @Test
+    public void testCanUseEpollTransport() throws Exception {
+        if (!Epoll.isAvailable()) {
+            throw new SkipException("epoll is not available: " + Epoll.unavailabilityCause());
+        }
+        JMeterUtils.setProperty(EventLoops.TRANSPORT_PROPERTY, "epoll");
+        GrpcResponse response = callTestServer();
+        Assert.assertTrue(response.isSuccess(), String.valueOf(response.getThrowable()));
+        Assert.assertTrue(EventLoops.eventLoopGroup() instanceof EpollEventLoopGroup);
+    }
+
+    private GrpcResponse callTestServer() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            ClientCaller caller =
+                    new ClientCaller(
+                            GrpcRequestConfig.builder()
+                                    .hostPort(server.getHostPort())
+                                    .protoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString())
+                                    .libFolder(LIB_FOLDER.toString())
+                                    .fullMethod(FULL_METHOD)
+                                    .build());
+            try {
+                caller.buildRequestAndMetadata(REQUEST_JSON, "");
+                return caller.call("2000");
+            } finally {
+                caller.shutdownNettyChannel();
+            }
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package vn.zalopay.benchmark.core.grpc;
 
+import com.github.os72.protocjar.Protoc;
 import com.google.protobuf.DescriptorProtos;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.jmeter.services.FileServer;
+import org.apache.jmeter.util.JMeterUtils;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.testng.Assert;
@@ -17,6 +19,7 @@ import vn.zalopay.benchmark.exception.ProtocInvocationException;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
@@ -101,6 +104,50 @@ public class ProtocInvokerTest extends BaseTest {
         Assert.assertEquals(fileDescriptorSet.getFileCount(), 4);
     }
 
+    @Test
+    public void canReuseDescriptorFromPersistentCache() throws IOException {
+        Path cacheDir = Files.createTempDirectory("descriptor-cache");
+        try {
+            JMeterUtils.setProperty(
+                    ProtocInvoker.DESCRIPTOR_CACHE_DIR_PROPERTY, cacheDir.toString());
+            DescriptorProtos.FileDescriptorSet compiled =
+                    ProtocInvoker.forConfig(PROTO_FOLDER.toAbsolutePath().toString(), "")
+                            .invoke();
+            Assert.assertEquals(cacheDir.toFile().list().length, 1);
+
+            MockedStatic<Protoc> protocMockedStatic = Mockito.mockStatic(Protoc.class);
+            try {
+                DescriptorProtos.FileDescriptorSet cached =
+                        ProtocInvoker.forConfig(PROTO_FOLDER.toAbsolutePath().toString(), "")
+                                .invoke();
+                Assert.assertEquals(cached, compiled);
+                protocMockedStatic.verifyNoInteractions();
+            } finally {
+                protocMockedStatic.close();
+            }
+        } finally {
+            JMeterUtils.setProperty(ProtocInvoker.DESCRIPTOR_CACHE_DIR_PROPERTY, "");
+            FileUtils.deleteDirectory(cacheDir.toFile());
+        }
+    }
+
+    @Test
+    public void canCreateNewCacheEntryWhenProtoContentChanges() throws IOException {
+        Path cacheDir = Files.createTempDirectory("descriptor-cache");
+        try {
+            JMeterUtils.setProperty(
+                    ProtocInvoker.DESCRIPTOR_CACHE_DIR_PROPERTY, cacheDir.toString());
+            ProtocInvoker.forInline(String.format(PROTO_CONTENT_TEMPLATE, 1, 1), null).invoke();
+            ProtocInvoker.forInline(String.format(PROTO_CONTENT_TEMPLATE, 1, 1), null).invoke();
+            Assert.assertEquals(cacheDir.toFile().list().length, 1);
+            ProtocInvoker.forInline(String.format(PROTO_CONTENT_TEMPLATE, 2, 2), null).invoke();
+            Assert.assertEquals(cacheDir.toFile().list().length, 2);
+        } finally {
+            JMeterUtils.setProperty(ProtocInvoker.DESCRIPTOR_CACHE_DIR_PROPERTY, "");
+            FileUtils.deleteDirectory(cacheDir.toFile());
+        }
+    }
+
     private void createDummyProtoFiles() throws IOException {
         File folder = new File(PROTO_WITH_MORE_THAN_100_PROTO_FILES.toAbsolutePath().toString());
         FileUtils.deleteDirectory(folder);
@@ -0,0 +1,81 @@
+package vn.zalopay.benchmark.core.message;
+
+import com.google.protobuf.StringValue;
+import com.google.protobuf.util.JsonFormat;
+
+import io.grpc.Status;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.core.config.ResponseMode;
+import vn.zalopay.benchmark.core.specification.GrpcResponse;
+
+public class WriterTest {
+    private static final StringValue MESSAGE = StringValue.of("hello");
+
+    @Test
+    public void testCanWriteFullResponse() {
+        GrpcResponse grpcResponse = new GrpcResponse();
+        Writer<StringValue> writer =
+                Writer.create(grpcResponse, JsonFormat.TypeRegistry.getEmptyTypeRegistry());
+        writer.onNext(MESSAGE);
+        writer.onCompleted();
+        Assert.assertTrue(grpcResponse.isSuccess());
+        Assert.assertEquals(grpcResponse.getGrpcMessageString(), "\"hello\"");
+        Assert.assertEquals(grpcResponse.getResponseBytes(), MESSAGE.getSerializedSize());
+        Assert.assertEquals(grpcResponse.getStatusCode(), Status.Code.OK);
+    }
+
+    @Test
+    public void testCanDiscardBodyInSizeOnlyMode() {
+        GrpcResponse grpcResponse = new GrpcResponse();
+        Writer<StringValue> writer =
+                Writer.create(
+                        grpcResponse,
+                        JsonFormat.TypeRegistry.getEmptyTypeRegistry(),
+                        ResponseMode.SIZE_ONLY);
+        writer.onNext(MESSAGE);
+        writer.onNext(MESSAGE);
+        writer.onCompleted();
+        Assert.assertTrue(grpcResponse.isSuccess());
+        Assert.assertEquals(grpcResponse.getGrpcMessageString(), "[]");
+        Assert.assertEquals(grpcResponse.getResponseBytes(), 2L * MESSAGE.getSerializedSize());
+        Assert.assertEquals(grpcResponse.getStatusCode(), Status.Code.OK);
+    }
+
+    @Test
+    public void testCanDeferPrintingInLazyMode() {
+        GrpcResponse grpcResponse = new GrpcResponse();
+        Writer<StringValue> writer =
+                Writer.create(
+                        grpcResponse,
+                        JsonFormat.TypeRegistry.getEmptyTypeRegistry(),
+                        ResponseMode.LAZY);
+        writer.onNext(MESSAGE);
+        writer.onCompleted();
+        Assert.assertEquals(grpcResponse.getResponseBytes(), MESSAGE.getSerializedSize());
+        Assert.assertEquals(grpcResponse.getGrpcMessageString(), "\"hello\"");
+    }
+
+    @Test
+    public void testCanRecordStatusCodeOnError() {
+        GrpcResponse grpcResponse = new GrpcResponse();
+        Writer<StringValue> writer =
+                Writer.create(
+                        grpcResponse,
+                        JsonFormat.TypeRegistry.getEmptyTypeRegistry(),
+                        ResponseMode.SIZE_ONLY);
+        writer.onError(Status.DEADLINE_EXCEEDED.asRuntimeException());
+        Assert.assertFalse(grpcResponse.isSuccess());
+        Assert.assertEquals(grpcResponse.getStatusCode(), Status.Code.DEADLINE_EXCEEDED);
+    }
+
+    @Test
+    public void testCanParseResponseMode() {
+        Assert.assertEquals(ResponseMode.fromString("size_only"), ResponseMode.SIZE_ONLY);
+        Assert.assertEquals(ResponseMode.fromString(""), ResponseMode.FULL);
+        Assert.assertEquals(ResponseMode.fromString("LAZY"), ResponseMode.LAZY);
+        Assert.assertEquals(ResponseMode.fromString("unknown"), ResponseMode.FULL);
+    }
+}
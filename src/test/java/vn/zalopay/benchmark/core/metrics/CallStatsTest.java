@@ -0,0 +1,57 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CallStatsTest {
+
+    @BeforeMethod
+    @AfterMethod
+    public void resetStats() {
+        CallStats.get().stop();
+    }
+
+    @Test
+    public void testCanAggregateCallsAndMessages() {
+        CallStats stats = CallStats.get();
+        stats.callStarted();
+        stats.messageReceived(10);
+        stats.callSucceeded();
+        stats.callStarted();
+        stats.callFailed();
+
+        CallStats.Snapshot snapshot = stats.snapshot();
+        Assert.assertEquals(snapshot.getStarted(), 2);
+        Assert.assertEquals(snapshot.getSucceeded(), 1);
+        Assert.assertEquals(snapshot.getFailed(), 1);
+        Assert.assertEquals(snapshot.getMessages(), 1);
+        Assert.assertEquals(snapshot.getBytes(), 10);
+    }
+
+    @Test
+    public void testCanResetCountersWhenStopped() {
+        CallStats stats = CallStats.get();
+        stats.callStarted();
+        stats.report();
+        stats.stop();
+        Assert.assertEquals(stats.snapshot(), new CallStats.Snapshot(0, 0, 0, 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void testCanAggregateFlowControlWaits() {
+        CallStats stats = CallStats.get();
+        stats.flowControlBlocked(1_000);
+        stats.flowControlBlocked(2_000);
+
+        CallStats.Snapshot snapshot = stats.snapshot();
+        Assert.assertEquals(snapshot.getFlowControlWaits(), 2);
+        Assert.assertEquals(snapshot.getFlowControlBlockedNanos(), 3_000);
+    }
+
+    @Test
+    public void testCallLoggingIsDisabledByDefault() {
+        Assert.assertFalse(CallStats.isCallLoggingEnabled());
+    }
+}
@@ -0,0 +1,53 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import io.grpc.Status;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.core.BaseTest;
+
+public class ErrorStatsTest extends BaseTest {
+
+    @BeforeMethod
+    @AfterMethod
+    public void resetStats() {
+        ErrorStats.get().stop();
+        JMeterUtils.setProperty(ErrorStats.DETAILED_ERRORS_PROPERTY, "-1");
+    }
+
+    @Test
+    public void testReportsEveryFailureInFullByDefault() {
+        ErrorStats stats = ErrorStats.get();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(stats.failed(Status.UNAVAILABLE.withDescription("down " + i)));
+        }
+        Assert.assertTrue(stats.isDetailed(Status.Code.UNAVAILABLE));
+        Assert.assertEquals(stats.getFailures(Status.Code.UNAVAILABLE), 5);
+    }
+
+    @Test
+    public void testCanLimitDetailedFailuresPerCode() {
+        JMeterUtils.setProperty(ErrorStats.DETAILED_ERRORS_PROPERTY, "2");
+        ErrorStats stats = ErrorStats.get();
+        Assert.assertTrue(stats.failed(Status.UNAVAILABLE.withDescription("first")));
+        Assert.assertTrue(stats.failed(Status.UNAVAILABLE.withDescription("second")));
+        Assert.assertFalse(stats.isDetailed(Status.Code.UNAVAILABLE));
+        Assert.assertFalse(stats.failed(Status.UNAVAILABLE.withDescription("third")));
+        Assert.assertTrue(stats.failed(Status.DEADLINE_EXCEEDED));
+
+        Assert.assertEquals(stats.getFailures(Status.Code.UNAVAILABLE), 3);
+        Assert.assertEquals(stats.getFailures(Status.Code.DEADLINE_EXCEEDED), 1);
+        Assert.assertEquals(stats.getDescription(Status.Code.UNAVAILABLE), "first");
+        Assert.assertEquals(
+                stats.getDescription(Status.Code.DEADLINE_EXCEEDED), "DEADLINE_EXCEEDED");
+
+        stats.stop();
+        Assert.assertEquals(stats.getFailures(Status.Code.UNAVAILABLE), 0);
+        Assert.assertTrue(stats.failed(Status.UNAVAILABLE.withDescription("again")));
+        Assert.assertEquals(stats.getDescription(Status.Code.UNAVAILABLE), "again");
+    }
+}
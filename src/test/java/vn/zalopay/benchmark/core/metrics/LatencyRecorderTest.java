@@ -0,0 +1,100 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import io.grpc.Status;
+
+import org.HdrHistogram.Histogram;
+import org.apache.commons.io.FileUtils;
+import org.apache.jmeter.util.JMeterUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.core.BaseTest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class LatencyRecorderTest extends BaseTest {
+    private static final String METHOD = "bookstore.Bookstore/CreateShelf";
+
+    @BeforeMethod
+    @AfterMethod
+    public void resetRecorder() {
+        LatencyRecorder.get().stop();
+        JMeterUtils.setProperty(LatencyRecorder.LATENCY_DIR_PROPERTY, "");
+        JMeterUtils.setProperty(LatencyRecorder.EXPECTED_INTERVAL_PROPERTY, "0");
+    }
+
+    @Test
+    public void testCanMergeRecordingsOfAllThreadsPerStatus() throws Exception {
+        Path dir = Files.createTempDirectory("latency");
+        try {
+            JMeterUtils.setProperty(LatencyRecorder.LATENCY_DIR_PROPERTY, dir.toString());
+            LatencyRecorder recorder = LatencyRecorder.get();
+            Thread other = new Thread(() -> recorder.record(METHOD, Status.Code.OK, millis(20)));
+            other.start();
+            other.join();
+            recorder.record(METHOD, Status.Code.OK, millis(10));
+            recorder.record(METHOD, Status.Code.UNAVAILABLE, millis(1));
+            recorder.merge();
+
+            Map<LatencyRecorder.Key, Histogram> totals = recorder.snapshot();
+            Histogram ok = totals.get(new LatencyRecorder.Key(METHOD, Status.Code.OK));
+            Assert.assertEquals(ok.getTotalCount(), 2);
+            Assert.assertTrue(ok.valuesAreEquivalent(ok.getMaxValue(), 20_000));
+            Assert.assertEquals(
+                    totals.get(new LatencyRecorder.Key(METHOD, Status.Code.UNAVAILABLE))
+                            .getTotalCount(),
+                    1);
+
+            recorder.stop();
+            String hgrm =
+                    new String(
+                            Files.readAllBytes(
+                                    dir.resolve("bookstore.Bookstore_CreateShelf-OK.hgrm")),
+                            StandardCharsets.UTF_8);
+            Assert.assertTrue(hgrm.contains("#[Max     ="), hgrm);
+            Assert.assertTrue(
+                    Files.exists(dir.resolve("bookstore.Bookstore_CreateShelf-UNAVAILABLE.hgrm")));
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testCanCorrectForCoordinatedOmission() throws IOException {
+        Path dir = Files.createTempDirectory("latency");
+        try {
+            JMeterUtils.setProperty(LatencyRecorder.LATENCY_DIR_PROPERTY, dir.toString());
+            JMeterUtils.setProperty(LatencyRecorder.EXPECTED_INTERVAL_PROPERTY, "10");
+            LatencyRecorder recorder = LatencyRecorder.get();
+            // A 100 ms stall hides the nine calls which should have started during it.
+            recorder.record(METHOD, Status.Code.OK, millis(100));
+            recorder.merge();
+            Assert.assertEquals(
+                    recorder.snapshot()
+                            .get(new LatencyRecorder.Key(METHOD, Status.Code.OK))
+                            .getTotalCount(),
+                    10);
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testRecordsNothingWithoutDirectory() {
+        LatencyRecorder recorder = LatencyRecorder.get();
+        recorder.record(METHOD, Status.Code.OK, millis(10));
+        recorder.merge();
+        Assert.assertTrue(recorder.snapshot().isEmpty());
+    }
+
+    private static long millis(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+}
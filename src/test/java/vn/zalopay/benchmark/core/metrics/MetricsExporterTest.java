@@ -0,0 +1,131 @@
+package vn.zalopay.benchmark.core.metrics;
+
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.jmeter.util.JMeterUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.core.BaseTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsExporterTest extends BaseTest {
+    private static final String METHOD = "bookstore.Bookstore/CreateShelf";
+
+    @BeforeMethod
+    @AfterMethod
+    public void resetExporter() {
+        MetricsExporter.get().stop();
+        JMeterUtils.setProperty(MetricsExporter.METRICS_PORT_PROPERTY, "0");
+    }
+
+    @Test
+    public void testIsDisabledWithoutPort() {
+        MetricsExporter.get().start();
+        Assert.assertEquals(MetricsExporter.get().getPort(), -1);
+        Assert.assertFalse(RpcMetrics.get().isEnabled());
+    }
+
+    @Test
+    public void testCanServeCallAndChannelMetrics() throws Exception {
+        int port = freePort();
+        JMeterUtils.setProperty(MetricsExporter.METRICS_PORT_PROPERTY, String.valueOf(port));
+        MetricsExporter.get().start();
+        Assert.assertEquals(MetricsExporter.get().getPort(), port);
+
+        RpcMetrics metrics = RpcMetrics.get();
+        metrics.callCompleted(METHOD, Status.Code.OK, TimeUnit.MILLISECONDS.toNanos(3), 10, 20);
+        metrics.callCompleted(METHOD, Status.Code.OK, TimeUnit.SECONDS.toNanos(20), 10, 20);
+        metrics.callCompleted(METHOD, Status.Code.UNAVAILABLE, 0, 10, 0);
+
+        ManagedChannel channel =
+                NettyChannelBuilder.forAddress("localhost", freePort()).usePlaintext().build();
+        metrics.watchChannel(channel);
+        channel.getState(true);
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!metrics.render().contains("transitions_total{state=\"SHUTDOWN\"} 1")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        String body = scrape(port);
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_rpcs_total{method=\"" + METHOD + "\",code=\"OK\"} 2"));
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_rpcs_total{method=\""
+                                + METHOD
+                                + "\",code=\"UNAVAILABLE\"} 1"));
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_rpc_duration_seconds_bucket{method=\""
+                                + METHOD
+                                + "\",code=\"OK\",le=\"0.0025\"} 0"));
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_rpc_duration_seconds_bucket{method=\""
+                                + METHOD
+                                + "\",code=\"OK\",le=\"0.005\"} 1"));
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_rpc_duration_seconds_bucket{method=\""
+                                + METHOD
+                                + "\",code=\"OK\",le=\"+Inf\"} 2"));
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_sent_bytes_total{method=\"" + METHOD + "\"} 30"));
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_received_bytes_total{method=\"" + METHOD + "\"} 40"));
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_channel_state_transitions_total{state=\"SHUTDOWN\"} 1"));
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_channels{state=\""
+                                + ConnectivityState.IDLE
+                                + "\"} 0"));
+        Assert.assertTrue(
+                body.contains(
+                        "grpc_request_channels{state=\""
+                                + ConnectivityState.READY
+                                + "\"} 0"));
+        Assert.assertTrue(body.contains("# TYPE grpc_request_in_flight_calls gauge"));
+
+        MetricsExporter.get().stop();
+        Assert.assertFalse(RpcMetrics.get().isEnabled());
+        Assert.assertFalse(RpcMetrics.get().render().contains(METHOD));
+    }
+
+    private static String scrape(int port) throws IOException {
+        URL url = new URL("http://localhost:" + port + "/metrics");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        Assert.assertEquals(connection.getResponseCode(), 200);
+        Assert.assertEquals(
+                connection.getHeaderField("Content-Type"), MetricsExporter.CONTENT_TYPE);
+        try (InputStream in = connection.getInputStream()) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package vn.zalopay.benchmark.core.protobuf;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.core.BaseTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class DescriptorCacheTest extends BaseTest {
+    private static final String INLINE_PROTO =
+            "syntax = \"proto3\";\n"
+                    + "package cache;\n"
+                    + "service Echo { rpc Say (Msg) returns (Msg) {}; }\n"
+                    + "message Msg { string text = 1; }";
+
+    @Test
+    public void canReuseCompiledDescriptorsForSameConfig() {
+        DescriptorCache.CompiledProtos first =
+                DescriptorCache.forConfig(PROTO_FOLDER.toString(), LIB_FOLDER.toString());
+        DescriptorCache.CompiledProtos second =
+                DescriptorCache.forConfig(PROTO_FOLDER.toString(), LIB_FOLDER.toString());
+        Assert.assertSame(first, second);
+        Assert.assertSame(first.getServiceResolver(), second.getServiceResolver());
+        Assert.assertTrue(first.getFileDescriptorSet().getFileCount() > 0);
+        Assert.assertEquals(DescriptorCache.size(), 1);
+    }
+
+    @Test
+    public void canSeparateEntriesByLibFolderAndInlineContent() {
+        DescriptorCache.CompiledProtos withLib =
+                DescriptorCache.forConfig(PROTO_FOLDER.toString(), LIB_FOLDER.toString());
+        DescriptorCache.CompiledProtos withoutLib =
+                DescriptorCache.forConfig(PROTO_FOLDER.toString(), "");
+        DescriptorCache.CompiledProtos inline = DescriptorCache.forInline(INLINE_PROTO, null);
+        Assert.assertNotSame(withLib, withoutLib);
+        Assert.assertNotNull(
+                inline.getServiceResolver()
+                        .resolveServiceMethod(ProtoMethodName.parseFullGrpcMethodName("cache.Echo/Say")));
+        Assert.assertEquals(DescriptorCache.size(), 3);
+    }
+
+    @Test
+    public void canCompileOnceForConcurrentCallers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<DescriptorCache.CompiledProtos>> tasks = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                tasks.add(() -> DescriptorCache.forInline(INLINE_PROTO, null));
+            }
+            List<Future<DescriptorCache.CompiledProtos>> results = executor.invokeAll(tasks);
+            DescriptorCache.CompiledProtos expected = results.get(0).get();
+            for (Future<DescriptorCache.CompiledProtos> result : results) {
+                Assert.assertSame(result.get(), expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void canRetryAfterFailedCompilation() {
+        Assert.assertThrows(() -> DescriptorCache.forInline("syntax = \"proto3\"; invalid", null));
+        Assert.assertThrows(() -> DescriptorCache.forInline("syntax = \"proto3\"; invalid", null));
+        Assert.assertNotNull(DescriptorCache.forInline(INLINE_PROTO, null));
+    }
+}
@@ -3,19 +3,34 @@ package vn.zalopay.benchmark.core.sampler;
 import com.google.common.net.HostAndPort;
 import com.google.protobuf.util.JsonFormat;
 
+import io.grpc.Status;
+
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jmeter.visualizers.SamplingStatCalculator;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import vn.zalopay.benchmark.GRPCSampler;
+import vn.zalopay.benchmark.LazyResponseSampleResult;
 import vn.zalopay.benchmark.constant.GrpcSamplerConstant;
 import vn.zalopay.benchmark.core.BaseTest;
 import vn.zalopay.benchmark.core.ClientCaller;
+import vn.zalopay.benchmark.core.DynamicTestServer;
+import vn.zalopay.benchmark.core.config.CallMode;
+import vn.zalopay.benchmark.core.config.ResponseMode;
 import vn.zalopay.benchmark.core.message.Writer;
+import vn.zalopay.benchmark.core.metrics.CallStats;
+import vn.zalopay.benchmark.core.metrics.ErrorStats;
 import vn.zalopay.benchmark.core.specification.GrpcResponse;
 
+import java.net.ServerSocket;
+import java.util.Arrays;
+
 public class GrpcSamplerTest extends BaseTest {
 
     @Test
@@ -145,6 +160,455 @@ public class GrpcSamplerTest extends BaseTest {
                         sampleResult.getResponseMessage(), "4 DEADLINE_EXCEEDED"));
     }
 
+    @Test
+    public void testCanReportCompactErrorsAfterDetailedOnes() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        JMeterUtils.setProperty(ErrorStats.DETAILED_ERRORS_PROPERTY, "1");
+        ErrorStats.get().stop();
+        try {
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost("localhost");
+            grpcSampler.setPort(Integer.toString(port));
+            grpcSampler.setFullMethod(FULL_METHOD);
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.threadStarted();
+            SampleResult first = grpcSampler.sample(null);
+            SampleResult second = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+
+            Assert.assertEquals(first.getResponseMessage(), "14 UNAVAILABLE");
+            Assert.assertEquals(second.getResponseMessage(), "14 UNAVAILABLE");
+            Assert.assertEquals(
+                    second.getResponseDataAsString(),
+                    ErrorStats.get().getDescription(Status.Code.UNAVAILABLE));
+            Assert.assertEquals(ErrorStats.get().getFailures(Status.Code.UNAVAILABLE), 2);
+        } finally {
+            JMeterUtils.setProperty(ErrorStats.DETAILED_ERRORS_PROPERTY, "-1");
+            ErrorStats.get().stop();
+        }
+    }
+
+    @Test
+    public void testCanSendAsyncSampleRequest() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod(FULL_METHOD);
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setCallMode(CallMode.ASYNC_UNARY.name());
+            grpcSampler.setAsyncCallsPerSample("10");
+            grpcSampler.setAsyncMaxInFlight("3");
+            JMeterVariables variables = new JMeterVariables();
+            JMeterContextService.getContext().setVariables(variables);
+            grpcSampler.threadStarted();
+            SampleResult first = grpcSampler.sample(null);
+            SampleResult second = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+            Assert.assertTrue(first.isSuccessful(), first.getResponseMessage());
+            Assert.assertTrue(second.isSuccessful(), second.getResponseMessage());
+            Assert.assertEquals(first.getSampleCount(), 1);
+            Assert.assertEquals(first.getErrorCount(), 0);
+            // Every batch returns with at most the in-flight cap of its calls still running
+            Assert.assertTrue(first.getSubResults().length >= 7);
+            Assert.assertTrue(
+                    first.getSubResults()[0].getResponseDataAsString().contains("Hello server"));
+            Assert.assertEquals(first.getSubResults()[0].getSampleLabel(), "-call");
+            Assert.assertEquals(
+                    variables.get(GRPCSampler.CALLS),
+                    Integer.toString(second.getSubResults().length));
+        }
+    }
+
+    @Test
+    public void testCanReportBatchAndCallLatenciesSeparately() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod(FULL_METHOD);
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setCallMode(CallMode.ASYNC_UNARY.name());
+            grpcSampler.setAsyncCallsPerSample("10");
+            grpcSampler.setAsyncMaxInFlight("1");
+            JMeterVariables variables = new JMeterVariables();
+            JMeterContextService.getContext().setVariables(variables);
+            grpcSampler.threadStarted();
+            SampleResult sampleResult = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+
+            // Listeners see the batch time, not the batch time divided by its calls
+            SamplingStatCalculator calculator = new SamplingStatCalculator("batch");
+            calculator.addSample(sampleResult);
+            Assert.assertEquals(calculator.getCount(), 1);
+            Assert.assertEquals(calculator.getMean(), (double) sampleResult.getTime());
+
+            SampleResult[] calls = sampleResult.getSubResults();
+            // One call in flight at most: the batch returns with its first nine calls completed
+            Assert.assertTrue(calls.length >= 9, "Calls: " + calls.length);
+            long[] elapsed = new long[calls.length];
+            for (int i = 0; i < calls.length; i++) {
+                elapsed[i] = calls[i].getTime();
+            }
+            Arrays.sort(elapsed);
+            Assert.assertEquals(variables.get(GRPCSampler.CALLS), Integer.toString(calls.length));
+            Assert.assertEquals(variables.get(GRPCSampler.CALLS_FAILED), "0");
+            Assert.assertEquals(
+                    variables.get(GRPCSampler.CALL_P50),
+                    Long.toString(elapsed[(int) Math.ceil(calls.length / 2.0) - 1]));
+            Assert.assertEquals(
+                    variables.get(GRPCSampler.CALL_MAX), Long.toString(elapsed[calls.length - 1]));
+            Assert.assertTrue(
+                    Long.parseLong(variables.get(GRPCSampler.CALL_MAX)) <= sampleResult.getTime());
+        }
+    }
+
+    @Test
+    public void testCanSendVirtualUsersSampleRequest() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod(FULL_METHOD);
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setCallMode(CallMode.VIRTUAL_USERS.name());
+            grpcSampler.setVirtualUsers("20");
+            grpcSampler.threadStarted();
+            SampleResult sampleResult = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+            Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+            Assert.assertEquals(sampleResult.getSampleCount(), 1);
+            Assert.assertEquals(sampleResult.getErrorCount(), 0);
+            Assert.assertEquals(sampleResult.getSubResults().length, 20);
+            Assert.assertTrue(
+                    sampleResult
+                            .getSubResults()[0]
+                            .getResponseDataAsString()
+                            .contains("Hello server"));
+        }
+    }
+
+    @Test
+    public void testCanWarmUpConnectionAtThreadStart() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod(FULL_METHOD);
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setWarmUpTimeout("2000");
+            grpcSampler.setWarmUpCalls("5");
+            grpcSampler.threadStarted();
+            SampleResult sampleResult = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+            Assert.assertEquals(grpcSampler.getWarmUpTimeout(), 2000);
+            Assert.assertEquals(grpcSampler.getWarmUpCalls(), 5);
+            Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+            Assert.assertTrue(sampleResult.getResponseDataAsString().contains("Hello server"));
+        }
+    }
+
+    @Test
+    public void testCanWarmUpConnectionBeforeRequestVariablesAreBound() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod(FULL_METHOD);
+            grpcSampler.setDeadline("2000");
+            // Not substituted yet at thread start, so the request does not parse
+            grpcSampler.setRequestJson("{\"shelf\":{\"id\":${shelfId},\"theme\":\"Hello\"}}");
+            grpcSampler.setWarmUpTimeout("2000");
+            grpcSampler.setWarmUpCalls("2");
+            CallStats.get().stop();
+            grpcSampler.threadStarted();
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            SampleResult sampleResult = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+            Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+            // The failed warm-up request kept the connected channel
+            Assert.assertEquals(CallStats.get().snapshot().getChannelRebuilds(), 0);
+            CallStats.get().stop();
+        }
+    }
+
+    @Test
+    public void testCanSendServerStreamingSampleRequest() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        3)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod("bookstore.Bookstore/GetShelfStreamServer");
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setCallMode(CallMode.SERVER_STREAMING.name());
+            grpcSampler.threadStarted();
+            SampleResult sampleResult = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+            Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+            Assert.assertTrue(
+                    sampleResult.getResponseMessage().startsWith("3 messages"),
+                    sampleResult.getResponseMessage());
+            Assert.assertTrue(sampleResult.getLatency() <= sampleResult.getTime());
+            Assert.assertEquals(sampleResult.getSubResults().length, 3);
+            Assert.assertTrue(
+                    sampleResult
+                            .getSubResults()[2]
+                            .getResponseDataAsString()
+                            .contains("Hello server"));
+        }
+    }
+
+    @Test
+    public void testCanRenderServerStreamingSubResultsLazily() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        3)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod("bookstore.Bookstore/GetShelfStreamServer");
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setCallMode(CallMode.SERVER_STREAMING.name());
+            grpcSampler.setResponseMode(ResponseMode.LAZY.name());
+            grpcSampler.threadStarted();
+            SampleResult sampleResult = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+            Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+            Assert.assertEquals(sampleResult.getSubResults().length, 3);
+            SampleResult last = sampleResult.getSubResults()[2];
+            Assert.assertTrue(last instanceof LazyResponseSampleResult);
+            Assert.assertTrue(last.getBodySizeAsLong() > 0);
+            Assert.assertTrue(last.getResponseDataAsString().contains("Hello server"));
+        }
+    }
+
+    @Test
+    public void testCanExposeCallPhaseTimings() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod(FULL_METHOD);
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            JMeterVariables variables = new JMeterVariables();
+            JMeterContextService.getContext().setVariables(variables);
+            grpcSampler.threadStarted();
+            SampleResult sampleResult = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+            Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+            Assert.assertTrue(sampleResult.getLatency() <= sampleResult.getTime());
+            Assert.assertTrue(sampleResult.getConnectTime() <= sampleResult.getLatency());
+            for (String name :
+                    new String[] {
+                        GRPCSampler.TIMING_ENCODE,
+                        GRPCSampler.TIMING_QUEUE,
+                        GRPCSampler.TIMING_HEADERS,
+                        GRPCSampler.TIMING_LAST_BYTE,
+                        GRPCSampler.TIMING_DECODE,
+                        GRPCSampler.TIMING_RENDER
+                    }) {
+                Assert.assertTrue(Long.parseLong(variables.get(name)) >= 0, name);
+            }
+        }
+    }
+
+    @Test
+    public void testCanSendBidiSessionSampleRequests() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod("bookstore.Bookstore/GetShelfStreamBidi");
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setCallMode(CallMode.BIDI_SESSION.name());
+            grpcSampler.setCorrelationField("shelf.id=id");
+            grpcSampler.threadStarted();
+            for (int i = 0; i < 3; i++) {
+                SampleResult sampleResult = grpcSampler.sample(null);
+                Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+                Assert.assertTrue(sampleResult.getResponseDataAsString().contains("Hello server"));
+            }
+            grpcSampler.threadFinished();
+        }
+    }
+
+    @Test
+    public void testCanExposeBidiSessionExchangeTimings() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod("bookstore.Bookstore/GetShelfStreamBidi");
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setCallMode(CallMode.BIDI_SESSION.name());
+            JMeterVariables variables = new JMeterVariables();
+            JMeterContextService.getContext().setVariables(variables);
+            grpcSampler.threadStarted();
+            for (int i = 0; i < 2; i++) {
+                SampleResult sampleResult = grpcSampler.sample(null);
+                Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+                Assert.assertTrue(sampleResult.getLatency() <= sampleResult.getTime());
+                long queue = Long.parseLong(variables.get(GRPCSampler.TIMING_QUEUE));
+                long headers = Long.parseLong(variables.get(GRPCSampler.TIMING_HEADERS));
+                Assert.assertTrue(queue >= 0 && headers >= queue, queue + " / " + headers);
+                Assert.assertEquals(variables.get(GRPCSampler.ATTEMPTS), "1");
+                Assert.assertEquals(variables.get(GRPCSampler.BACKEND), server.getHostPort());
+            }
+            grpcSampler.threadFinished();
+        }
+    }
+
+    @Test
+    public void testCanSendClientStreamingSampleRequest() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        1)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod("bookstore.Bookstore/GetShelfStreamClient");
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setCallMode(CallMode.CLIENT_STREAMING.name());
+            grpcSampler.setStreamMessagesPerCall("4");
+            grpcSampler.threadStarted();
+            SampleResult sampleResult = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+            Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+            Assert.assertTrue(
+                    sampleResult.getResponseMessage().startsWith("4 messages sent"),
+                    sampleResult.getResponseMessage());
+            Assert.assertTrue(sampleResult.getSentBytes() > 0);
+        }
+    }
+
+    @Test
+    public void testCanCountServerStreamingMessagesWithoutSubResults() throws Exception {
+        try (DynamicTestServer server =
+                DynamicTestServer.start(
+                        PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString(),
+                        LIB_FOLDER.toString(),
+                        "bookstore.Bookstore",
+                        5)) {
+            HostAndPort hostAndPort = HostAndPort.fromString(server.getHostPort());
+            GRPCSampler grpcSampler = new GRPCSampler();
+            grpcSampler.setProtoFolder(PROTO_WITH_EXTERNAL_IMPORT_FOLDER.toString());
+            grpcSampler.setLibFolder(LIB_FOLDER.toString());
+            grpcSampler.setHost(hostAndPort.getHost());
+            grpcSampler.setPort(Integer.toString(hostAndPort.getPort()));
+            grpcSampler.setFullMethod("bookstore.Bookstore/GetShelfStreamServer");
+            grpcSampler.setDeadline("2000");
+            grpcSampler.setRequestJson(REQUEST_JSON);
+            grpcSampler.setCallMode(CallMode.SERVER_STREAMING.name());
+            grpcSampler.setStreamSubResults(false);
+            grpcSampler.threadStarted();
+            SampleResult sampleResult = grpcSampler.sample(null);
+            grpcSampler.threadFinished();
+            Assert.assertTrue(sampleResult.isSuccessful(), sampleResult.getResponseMessage());
+            Assert.assertTrue(sampleResult.getResponseMessage().startsWith("5 messages"));
+            Assert.assertEquals(sampleResult.getSubResults().length, 0);
+        }
+    }
+
     @Test
     public void testCanSendSampleRequestWithErrorNullResponse() {
         MockedStatic<Writer> writerStatic = Mockito.mockStatic(Writer.class);
@@ -0,0 +1,52 @@
+package vn.zalopay.benchmark.core.sampler;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.LazyResponseSampleResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LazyResponseSampleResultTest {
+
+    @Test
+    public void testCanRenderResponseDataOnceOnFirstRead() {
+        AtomicInteger renders = new AtomicInteger();
+        LazyResponseSampleResult sampleResult = new LazyResponseSampleResult();
+        sampleResult.setLazyResponseData(
+                () -> {
+                    renders.incrementAndGet();
+                    return "{\"message\": \"hello\"}";
+                },
+                7);
+        Assert.assertEquals(sampleResult.getBodySizeAsLong(), 7);
+        Assert.assertEquals(renders.get(), 0);
+
+        Assert.assertEquals(sampleResult.getResponseDataAsString(), "{\"message\": \"hello\"}");
+        Assert.assertEquals(new String(sampleResult.getResponseData()), "{\"message\": \"hello\"}");
+        Assert.assertEquals(renders.get(), 1);
+    }
+
+    @Test
+    public void testCanRenderResponseDataBeforeSerialization()
+            throws IOException, ClassNotFoundException {
+        LazyResponseSampleResult sampleResult = new LazyResponseSampleResult();
+        sampleResult.setLazyResponseData(() -> "{\"message\": \"hello\"}", 7);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(sampleResult);
+        }
+        try (ObjectInputStream in =
+                new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            SampleResult copy = (SampleResult) in.readObject();
+            Assert.assertEquals(copy.getResponseDataAsString(), "{\"message\": \"hello\"}");
+        }
+    }
+}
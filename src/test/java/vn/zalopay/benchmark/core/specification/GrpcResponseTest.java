@@ -18,4 +18,30 @@ public class GrpcResponseTest {
         Assert.assertEquals(
                 grpcResponse.getGrpcMessageString(), "[{data=message}, {data=message}]");
     }
+
+    @Test
+    public void testCanRecordMessageTimings() {
+        GrpcResponse grpcResponse = new GrpcResponse(true);
+        Assert.assertEquals(grpcResponse.getTimeToFirstMessageNanos(), -1);
+        grpcResponse.recordMessage(10);
+        grpcResponse.recordMessage(20);
+        Assert.assertEquals(grpcResponse.getMessageCount(), 2);
+        Assert.assertEquals(grpcResponse.getResponseBytes(), 30);
+        Assert.assertTrue(grpcResponse.getTimeToFirstMessageNanos() >= 0);
+        Assert.assertEquals(
+                grpcResponse.getMeanMessageGapNanos(), grpcResponse.getMaxMessageGapNanos());
+        Assert.assertEquals(grpcResponse.getMessageTimings().size(), 2);
+        Assert.assertEquals(grpcResponse.getMessageTimings().get(1).getSerializedSize(), 20);
+        Assert.assertTrue(
+                grpcResponse.getMessageTimings().get(0).getArrivalTimeMillis()
+                        >= grpcResponse.getStartTimeMillis());
+    }
+
+    @Test
+    public void testSkipsMessageTimingsByDefault() {
+        GrpcResponse grpcResponse = new GrpcResponse();
+        grpcResponse.recordMessage(10);
+        Assert.assertNull(grpcResponse.getMessageTimings());
+        Assert.assertEquals(grpcResponse.getMessageCount(), 1);
+    }
 }
@@ -0,0 +1,37 @@
+package vn.zalopay.benchmark.core.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import vn.zalopay.benchmark.util.VirtualThreads;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void testUsesVirtualThreadsOnlyWhenTheRuntimeHasThem() {
+        String version = System.getProperty("java.specification.version");
+        boolean java21 = !version.startsWith("1.") && Integer.parseInt(version) >= 21;
+        Assert.assertEquals(VirtualThreads.isAvailable(), java21);
+    }
+
+    @Test
+    public void testRunsTasksOnUserThreads() throws Exception {
+        Future<String> threadName =
+                VirtualThreads.executor().submit(() -> Thread.currentThread().getName());
+        Assert.assertTrue(threadName.get().startsWith("grpc-request-user-"), threadName.get());
+    }
+
+    @Test
+    public void testBoundsPlatformThreadsWithoutVirtualThreads() {
+        if (VirtualThreads.isAvailable()) {
+            Assert.assertEquals(VirtualThreads.concurrency(), Integer.MAX_VALUE);
+            return;
+        }
+        Assert.assertEquals(VirtualThreads.concurrency(), 256);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) VirtualThreads.executor();
+        Assert.assertEquals(executor.getMaximumPoolSize(), VirtualThreads.concurrency());
+    }
+}